@@ -0,0 +1,63 @@
+package bench;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    // Per-position operations: evaluation, game result, move generation
+    // and the bit utilities they are built on.
+
+    @Benchmark
+    public int evaluate(Positions positions) {
+        return Engine.evaluate(positions.board);
+    }
+
+    @Benchmark
+    public int evaluateMore(Positions positions) {
+        return Engine.evaluateMore(positions.board);
+    }
+
+    @Benchmark
+    public String winner(Positions positions) {
+        return Engine.winner(positions.board);
+    }
+
+    @Benchmark
+    public void next(Positions positions, Blackhole blackhole) {
+        // Every move from the position
+        for (long squares = positions.empty; squares != 0; squares &= squares - 1) {
+            blackhole.consume(Engine.next(positions.board, Long.numberOfTrailingZeros(squares)));
+        }
+    }
+
+    @Benchmark
+    public int countOnes(Positions positions) {
+        return Engine.countOnes(positions.empty);
+    }
+
+    @Benchmark
+    public int iterator(Positions positions) {
+        // Sum of the empty squares through the boxing iterator
+        int sum = 0;
+        Iterator<Integer> squares = Engine.iterator(positions.empty);
+        while (squares.hasNext()) {
+            sum += squares.next();
+        }
+        return sum;
+    }
+}
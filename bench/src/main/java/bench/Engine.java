@@ -0,0 +1,245 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Iterator;
+
+final class Engine {
+
+    // Access to the game classes from the benchmarks.
+    //
+    // The game lives in the default package, which a class in a named package
+    // cannot refer to, and JMH does not accept benchmarks in the default
+    // package. So the benchmarks call the game through method handles, typed
+    // on Object where a game class appears. The handles are static finals,
+    // which the JIT treats as constants and inlines like direct calls.
+
+    private static final MethodHandle VALUE_OF;      // Board.valueOf(String)
+    private static final MethodHandle NEXT;          // Board.next(int)
+    private static final MethodHandle EVALUATE;      // Evaluate.evaluate(AbstractBoard)
+    private static final MethodHandle EVALUATE_MORE; // EvaluateMore.evaluate(AbstractBoard)
+    private static final MethodHandle EVALUATE_VECTOR; // VectorEvaluate.evaluate(AbstractBoard)
+    private static final MethodHandle SCAN_SCALAR;   // ScalarLineScan.scan(long, long)
+    private static final MethodHandle SCAN_VECTOR;   // VectorLineScan.scan(long, long)
+    private static final MethodHandle SCAN_TABLE;    // TableLineScan.scan(long, long)
+    private static final MethodHandle EVALUATE_TABLE; // TableLineScan.evaluate(AbstractBoard)
+    private static final MethodHandle WINNER;        // Evaluate.winner(AbstractBoard)
+    private static final MethodHandle COUNT_ONES;    // Bit.countOnes(long)
+    private static final MethodHandle ITERATOR;      // Bit.iterator(long)
+    private static final MethodHandle NEW_TABLE;     // new TranspositionTable(int)
+    private static final MethodHandle CLEAR;         // TranspositionTable.clear()
+    private static final MethodHandle NEW_SEARCH;    // new Search(TranspositionTable, int, long)
+    private static final MethodHandle ORDERING;      // Search.ordering(boolean)
+    private static final MethodHandle BEST_MOVE;     // Search.bestMove(Board)
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> board = Class.forName("Board");
+            Class<?> abstractBoard = Class.forName("AbstractBoard");
+            Class<?> table = Class.forName("TranspositionTable");
+            Class<?> search = Class.forName("Search");
+
+            VALUE_OF = lookup.findStatic(board, "valueOf", MethodType.methodType(board, String.class))
+                    .asType(MethodType.methodType(Object.class, String.class));
+            NEXT = lookup.findVirtual(board, "next", MethodType.methodType(board, int.class))
+                    .asType(MethodType.methodType(Object.class, Object.class, int.class));
+            EVALUATE = lookup.findStatic(Class.forName("Evaluate"), "evaluate",
+                    MethodType.methodType(int.class, abstractBoard))
+                    .asType(MethodType.methodType(int.class, Object.class));
+            EVALUATE_MORE = lookup.findStatic(Class.forName("EvaluateMore"), "evaluate",
+                    MethodType.methodType(int.class, abstractBoard))
+                    .asType(MethodType.methodType(int.class, Object.class));
+            EVALUATE_VECTOR = lookup.findStatic(Class.forName("VectorEvaluate"), "evaluate",
+                    MethodType.methodType(int.class, abstractBoard))
+                    .asType(MethodType.methodType(int.class, Object.class));
+            SCAN_SCALAR = scan(lookup, Class.forName("ScalarLineScan"));
+            SCAN_VECTOR = vectorScan(lookup);
+            SCAN_TABLE = scan(lookup, Class.forName("TableLineScan"));
+            EVALUATE_TABLE = lookup.findVirtual(Class.forName("LineScan"), "evaluate",
+                    MethodType.methodType(int.class, abstractBoard))
+                    .bindTo(Class.forName("TableLineScan").getConstructor().newInstance())
+                    .asType(MethodType.methodType(int.class, Object.class));
+            WINNER = lookup.findStatic(Class.forName("Evaluate"), "winner",
+                    MethodType.methodType(String.class, abstractBoard))
+                    .asType(MethodType.methodType(String.class, Object.class));
+            COUNT_ONES = lookup.findStatic(Class.forName("Bit"), "countOnes",
+                    MethodType.methodType(int.class, long.class));
+            ITERATOR = lookup.findStatic(Class.forName("Bit"), "iterator",
+                    MethodType.methodType(Iterator.class, long.class));
+            NEW_TABLE = lookup.findConstructor(table, MethodType.methodType(void.class, int.class))
+                    .asType(MethodType.methodType(Object.class, int.class));
+            CLEAR = lookup.findVirtual(table, "clear", MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(void.class, Object.class));
+            NEW_SEARCH = lookup.findConstructor(search,
+                    MethodType.methodType(void.class, table, int.class, long.class))
+                    .asType(MethodType.methodType(Object.class, Object.class, int.class, long.class));
+            ORDERING = lookup.findVirtual(search, "ordering", MethodType.methodType(search, boolean.class))
+                    .asType(MethodType.methodType(Object.class, Object.class, boolean.class));
+            BEST_MOVE = lookup.findVirtual(search, "bestMove", MethodType.methodType(int.class, board))
+                    .asType(MethodType.methodType(int.class, Object.class, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+
+        // No evaluation noise, so that evaluations and searches are reproducible
+        try {
+            MethodHandles.publicLookup().findStatic(Class.forName("Evaluate"), "setNoise",
+                    MethodType.methodType(void.class, boolean.class, long.class)).invokeExact(false, 0L);
+        } catch (Throwable e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Engine() {
+    }
+
+    private static MethodHandle vectorScan(MethodHandles.Lookup lookup) throws ReflectiveOperationException {
+        // The scalar scan if the Vector API module is missing (only
+        // LineScanBenchmark adds it), like LineScan.best()
+        try {
+            return scan(lookup, Class.forName("VectorLineScan"));
+        } catch (LinkageError e) {
+            return scan(lookup, Class.forName("ScalarLineScan"));
+        }
+    }
+
+    private static MethodHandle scan(MethodHandles.Lookup lookup, Class<?> scan)
+            throws ReflectiveOperationException {
+        // scan(long, long) bound to a new instance of the given LineScan
+        return lookup.findVirtual(scan, "scan", MethodType.methodType(long.class, long.class, long.class))
+                .bindTo(scan.getConstructor().newInstance());
+    }
+
+    static Object board(String position) {
+        try {
+            return (Object) VALUE_OF.invokeExact(position);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static Object next(Object board, int position) {
+        try {
+            return (Object) NEXT.invokeExact(board, position);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static int evaluate(Object board) {
+        try {
+            return (int) EVALUATE.invokeExact(board);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static int evaluateMore(Object board) {
+        try {
+            return (int) EVALUATE_MORE.invokeExact(board);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static int evaluateVector(Object board) {
+        try {
+            return (int) EVALUATE_VECTOR.invokeExact(board);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static long scanScalar(long x, long o) {
+        try {
+            return (long) SCAN_SCALAR.invokeExact(x, o);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static long scanVector(long x, long o) {
+        try {
+            return (long) SCAN_VECTOR.invokeExact(x, o);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static long scanTable(long x, long o) {
+        try {
+            return (long) SCAN_TABLE.invokeExact(x, o);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static int evaluateTable(Object board) {
+        try {
+            return (int) EVALUATE_TABLE.invokeExact(board);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String winner(Object board) {
+        try {
+            return (String) WINNER.invokeExact(board);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static int countOnes(long bits) {
+        try {
+            return (int) COUNT_ONES.invokeExact(bits);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static Iterator<Integer> iterator(long bits) {
+        try {
+            return (Iterator<Integer>) ITERATOR.invokeExact(bits);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static Object table(int megabytes) {
+        try {
+            return (Object) NEW_TABLE.invokeExact(megabytes);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static void clear(Object table) {
+        try {
+            CLEAR.invokeExact(table);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static Object search(Object table, int depth, boolean ordering) {
+        // Search to a fixed depth with no time limit
+        try {
+            Object search = (Object) NEW_SEARCH.invokeExact(table, depth, 0L);
+            return (Object) ORDERING.invokeExact(search, ordering);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static int bestMove(Object search, Object board) {
+        try {
+            return (int) BEST_MOVE.invokeExact(search, board);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class LineScanBenchmark {
+
+    // Line tallies from scratch: the scalar loop over the 76 lines against
+    // the Vector API and lookup table versions, and evaluation with the
+    // board's incremental tallies (evaluate) against the scans.
+    //
+    //     java -jar target/benchmarks.jar LineScanBenchmark
+
+    @Benchmark
+    public long scanScalar(Positions positions) {
+        return Engine.scanScalar(positions.x, positions.o);
+    }
+
+    @Benchmark
+    public long scanVector(Positions positions) {
+        return Engine.scanVector(positions.x, positions.o);
+    }
+
+    @Benchmark
+    public long scanTable(Positions positions) {
+        return Engine.scanTable(positions.x, positions.o);
+    }
+
+    @Benchmark
+    public int evaluate(Positions positions) {
+        return Engine.evaluate(positions.board);
+    }
+
+    @Benchmark
+    public int evaluateVector(Positions positions) {
+        return Engine.evaluateVector(positions.board);
+    }
+
+    @Benchmark
+    public int evaluateTable(Positions positions) {
+        return Engine.evaluateTable(positions.board);
+    }
+}
@@ -0,0 +1,57 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+public class Positions {
+
+    // Fixed corpus of positions (Board.valueOf format), none of them over:
+    //
+    //   opening   8 pieces, X to move
+    //   midgame  17 pieces, O to move, one open 3 in a row for each player
+    //   endgame  40 pieces, X to move, no open 3 in a row for either player
+
+    static final String OPENING =
+            "....|.x..|.o..|....  ....|.xo.|.ox.|....  ....|....|.x..|....  ....|....|....|..o.";
+    static final String MIDGAME =
+            "xo..|.x..|..o.|...x  ....|.xo.|.ox.|o...  ..x.|.o..|.x..|....  o...|....|.x..|o..x";
+    static final String ENDGAME =
+            ".oo.|o...|.o.x|o..o  x.xo|x..x|xxo.|oxox  ..oo|oxxo|ox.o|...x  x.x.|xoox|oox.|x.x.";
+
+    @Param({"opening", "midgame", "endgame"})
+    public String position;
+
+    Object board;        // Board for the position
+    long empty;          // Its empty squares
+    long x;              // X's squares
+    long o;              // O's squares
+
+    @Setup
+    public void setup() {
+        String s;
+        switch (this.position) {
+            case "opening": s = OPENING; break;
+            case "midgame": s = MIDGAME; break;
+            case "endgame": s = ENDGAME; break;
+            default: throw new IllegalArgumentException("Unknown position: " + this.position);
+        }
+        this.board = Engine.board(s);
+        this.empty = squares(s, '.');
+        this.x = squares(s, 'x');
+        this.o = squares(s, 'o');
+    }
+
+    private static long squares(String s, char piece) {
+        // Squares holding the given piece ('.' for empty)
+        long squares = 0;
+        int square = 0;
+        for (char c : s.toCharArray()) {
+            if (c == piece) squares |= 1L << square;
+            if (c == '.' || c == 'x' || c == 'o') square++;
+        }
+        return squares;
+    }
+}
@@ -0,0 +1,55 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SearchBenchmark {
+
+    // Full single-threaded searches, each from an empty transposition table:
+    // iterative deepening up to the given depth, the last iteration being a
+    // full minimaxRoot search to that depth.
+
+    @Param({"2", "3", "4"})
+    public int depth;
+
+    @Param({"true", "false"})
+    public boolean ordering;
+
+    private Object table;
+    private Object search;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.table = Engine.table(16);
+        this.search = Engine.search(this.table, this.depth, this.ordering);
+    }
+
+    @Setup(Level.Invocation)
+    public void clear() {
+        // A search takes milliseconds, so per-invocation setup is harmless
+        Engine.clear(this.table);
+    }
+
+    @Benchmark
+    public int bestMove(Positions positions) {
+        return Engine.bestMove(this.search, positions.board);
+    }
+}
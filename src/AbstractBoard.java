@@ -0,0 +1,283 @@
+public abstract class AbstractBoard {
+
+    // Board state shared by the immutable Board and the search's MutableBoard:
+    // the positions of both players, whose turn it is, the Zobrist hash and
+    // the line information below.
+
+    protected long x;       // Boolean vector of positions containing X's
+    protected long o;       // Boolean vector of positions containing O's
+    protected Player turn;  // Whose turn is it to play?
+    protected long hash;    // Zobrist hash of the positions
+
+    // Line information, updated incrementally as pieces are placed (only the
+    // at most 7 lines through the new piece change). Piece counts for a line
+    // are the bit counts of x and o masked by the line.
+    //
+    // Tallies are X's count minus O's count of the lines holding exactly one,
+    // two or three pieces of one player and none of the other. The line sets
+    // hold the indexes of such lines with two or three pieces, as 76-bit sets
+    // in two longs each: see lineSet() for the layout.
+
+    protected byte result = Result.NONE;   // Game result (see Result)
+    protected int ones = 0;
+    protected int twos = 0;
+    protected int threes = 0;
+    protected int center = 0;              // X's minus O's center control
+    protected final long[] lineSets;
+
+    // Constructors
+
+    protected AbstractBoard() { // Starting board configuration
+        this.x = 0;
+        this.o = 0;
+        this.turn = Player.X;
+        this.hash = 0;
+        this.lineSets = new long[8];
+    }
+
+    protected AbstractBoard(AbstractBoard board) { // Copy of the given board
+        this.x = board.x;
+        this.o = board.o;
+        this.turn = board.turn;
+        this.hash = board.hash;
+        this.result = board.result;
+        this.ones = board.ones;
+        this.twos = board.twos;
+        this.threes = board.threes;
+        this.center = board.center;
+        this.lineSets = board.lineSets.clone();
+    }
+
+    // Updates
+
+    protected void play(int position) {
+        // Place a piece for the player to move, in place
+        assert this.isEmpty(position);
+        long mine = this.get(this.turn);
+        long theirs = this.get(this.turn.other());
+
+        switch (this.turn) {
+            case X: this.x = Bit.set(this.x, position); break;
+            case O: this.o = Bit.set(this.o, position); break;
+            default: throw new IllegalArgumentException();
+        }
+        this.hash ^= Zobrist.key(this.turn, position);
+        this.place(this.turn, position, mine, theirs);
+        this.turn = this.turn.other();
+    }
+
+    protected void place(Player player, int position, long mine, long theirs) {
+        // Update the line information for a piece placed by the given player.
+        // mine and theirs are the positions of both players before the move.
+        int sign = (player == Player.X) ? 1 : -1;
+
+        for (int line : Line.through(position)) {
+            long mask = Line.lines[line].positions();
+            int mineCount = Long.bitCount(mine & mask);
+            int theirCount = Long.bitCount(theirs & mask);
+
+            if (theirCount == 0) {
+                // Still open for the player, with one more piece
+                this.tally(mineCount, -sign);
+                this.tally(mineCount + 1, sign);
+                this.toggle(player, mineCount, line);
+                this.toggle(player, mineCount + 1, line);
+                if (mineCount + 1 == Coordinate.N) this.result = (byte) Result.wins(player);
+            } else if (mineCount == 0) {
+                // Was open for the opponent, now blocked
+                this.tally(theirCount, sign);
+                this.toggle(player.other(), theirCount, line);
+            }
+        }
+        this.center += sign * Evaluate.centerControl(position);
+
+        if (this.result == Result.NONE && (mine | theirs | (1L << position)) == -1L) {
+            this.result = Result.TIE;
+        }
+    }
+
+    private void tally(int count, int delta) {
+        switch (count) {
+            case 1: this.ones += delta; break;
+            case 2: this.twos += delta; break;
+            case 3: this.threes += delta; break;
+        }
+    }
+
+    private static int lineSet(Player player, int count, int line) {
+        // Index in lineSets of the word holding the given line:
+        // X twos, X threes, O twos, O threes; lines 0-63 then 64-75
+        return (player == Player.X ? 0 : 4) + (count - 2) * 2 + (line >>> 6);
+    }
+
+    private void toggle(Player player, int count, int line) {
+        if (count == 2 || count == 3) {
+            this.lineSets[lineSet(player, count, line)] ^= 1L << line;
+        }
+    }
+
+    // Selectors
+
+    public Player turn() {
+        return this.turn;
+    }
+
+    public long hash() {
+        return this.hash;
+    }
+
+    public boolean isEmpty(int position) {
+        assert Coordinate.isValid(position);
+        return ! Bit.isSet(this.x | this.o, position);
+    }
+
+    public boolean isEmpty(int x, int y, int z) {
+        return this.isEmpty(Coordinate.position(x, y, z));
+    }
+
+    public int numberEmptySquares() {
+        return Bit.countOnes(~(this.x | this.o));
+    }
+
+    public long emptySquares() {
+        return ~(this.x | this.o);
+    }
+
+    public long get(Player player) {
+        if (player == Player.EMPTY) {
+            return emptySquares();
+        } else if (player == Player.X) {
+            return this.x;
+        } else {
+            return this.o;
+        }
+    }
+
+    public Player get(int position) {
+        assert Coordinate.isValid(position);
+        if (Bit.isSet(this.x, position)) return Player.X;
+        if (Bit.isSet(this.o, position)) return Player.O;
+        return Player.EMPTY;
+    }
+
+    public Player get(int x, int y, int z) {
+        return get(Coordinate.position(x, y, z));
+    }
+
+    // Line information
+
+    public int result() {
+        // Result code: Result.NONE while the game is not over
+        return this.result;
+    }
+
+    public int ones() {
+        return this.ones;
+    }
+
+    public int twos() {
+        return this.twos;
+    }
+
+    public int threes() {
+        return this.threes;
+    }
+
+    public int center() {
+        return this.center;
+    }
+
+    public boolean hasLine(Player player, int count, int line) {
+        // Does the line hold exactly count (2 or 3) of player's pieces and
+        // none of the opponent's?
+        return (this.lineSets[lineSet(player, count, line)] & (1L << line)) != 0;
+    }
+
+    public int nextLine(Player player, int count, int from) {
+        // First line at or after from holding exactly count (2 or 3) of
+        // player's pieces and none of the opponent's, or -1 if none.
+        //
+        //     for (int line = board.nextLine(Player.X, 2, 0); line >= 0;
+        //              line = board.nextLine(Player.X, 2, line + 1)) ...
+        for (int line = from; line < Line.lines.length; line = (line | 63) + 1) {
+            long word = this.lineSets[lineSet(player, count, line)] & (-1L << line);
+            if (word != 0) return (line & ~63) + Long.numberOfTrailingZeros(word);
+        }
+        return -1;
+    }
+
+    public long threats(Player player) {
+        // Empty squares that would complete a line for the given player
+        long mine = this.get(player);
+        long threats = 0;
+        for (int line = nextLine(player, 3, 0); line >= 0; line = nextLine(player, 3, line + 1)) {
+            threats |= Line.lines[line].positions() & ~mine;
+        }
+        return threats;
+    }
+
+    public long makesThrees(Player player) {
+        // Empty squares on the player's open 2 in a rows: playing there
+        // makes a 3 in a row
+        long empty = this.emptySquares();
+        long squares = 0;
+        for (int line = nextLine(player, 2, 0); line >= 0; line = nextLine(player, 2, line + 1)) {
+            squares |= Line.lines[line].positions() & empty;
+        }
+        return squares;
+    }
+
+    public long forks(Player player) {
+        // Empty squares on two or more of the player's open 2 in a rows:
+        // playing there makes two 3 in a rows (with different empty squares)
+        long empty = this.emptySquares();
+        long seen = 0;
+        long forks = 0;
+        for (int line = nextLine(player, 2, 0); line >= 0; line = nextLine(player, 2, line + 1)) {
+            long squares = Line.lines[line].positions() & empty;
+            forks |= seen & squares;
+            seen |= squares;
+        }
+        return forks;
+    }
+
+    // Image & printing functions
+
+    @Override
+    public String toString() {
+        int N = Coordinate.N;
+        int N2 = Coordinate.NSquared;
+        int N3 = Coordinate.NCubed;
+        String result = "";
+        String separator = "";
+
+        for (int position = 0; position < N3; position++) {
+            result += separator;
+            result += Player.toString(this.get(position));
+            if (position % N2 == 0) {
+                separator = " | ";
+            } else if (position % N == 0) {
+                separator = " ";
+            } else {
+                separator = "";
+            }
+        }
+        return result;
+    }
+
+
+    public void print() {
+        int N = Coordinate.N;
+        System.out.println();
+        for (int y = N-1; y >= 0; y--) {
+            for (int z = 0; z < N; z++) {
+                for (int x = 0; x < N; x++) {
+                    System.out.print(Player.toString(this.get(x, y, z)));
+                }
+                System.out.print("    ");
+            }
+            System.out.println();
+        }
+        System.out.println();
+    }
+}
@@ -1,43 +1,52 @@
-import java.util.Iterator;
+import java.util.SplittableRandom;
 
-public class Board implements State<Integer> {
+public class Board extends AbstractBoard implements IntState {
 
-    private final long x; // Boolean vector of positions containing X's
-    private final long o; // Boolean vector of positions containing O's
-    private final Player turn; // Whose turn is it to play?
+    // Immutable board: each move makes a new Board (see MutableBoard for the
+    // search's make/unmake representation).
 
     // Constructors.
 
     public Board() { // Starting board configuration
-        this.x = 0;
-        this.o = 0;
-        this.turn = Player.X;
+        super();
     }
 
     private Board(long x, long o, Player turn) {
+        super();
+
+        // Place the pieces one at a time to build up the line information
+        long xs = 0;
+        long os = 0;
+        for (int position = 0; position < Coordinate.NCubed; position++) {
+            if (Bit.isSet(x, position)) {
+                this.place(Player.X, position, xs, os);
+                xs = Bit.set(xs, position);
+            } else if (Bit.isSet(o, position)) {
+                this.place(Player.O, position, os, xs);
+                os = Bit.set(os, position);
+            }
+        }
         this.x = x;
         this.o = o;
         this.turn = turn;
+        this.hash = Zobrist.hash(x, o);
     }
 
     public Board(Board board, int position) { // New board for given move
-        switch (board.turn) {
-            case X:
-                this.x = Bit.set(board.x, position);
-                this.o = board.o;
-                break;
-
-            case O:
-                this.x = board.x;
-                this.o = Bit.set(board.o, position);
-                break;
-
-            default:
-                throw new IllegalArgumentException();
-        }
-        this.turn = board.turn.other();
+        super(board);
+        this.play(position);
     }
 
+    public static Board valueOf(long x, long o) {
+        // Board with the given X and O positions
+        Player turn;
+        switch (Bit.countOnes(x) - Bit.countOnes(o)) {
+            case 0:  turn = Player.X; break;
+            case 1:  turn = Player.O; break;
+            default: turn = Player.EMPTY; break;
+        }
+        return new Board(x, o, turn);
+    }
 
     public static Board valueOf(String s) {
         long xPositions = 0;
@@ -87,50 +96,6 @@ public class Board implements State<Integer> {
         return new Board(xPositions, oPositions, turn);
     }
 
-    // Selectors
-
-    public Player turn() {
-        return this.turn;
-    }
-
-    public boolean isEmpty(int position) {
-        assert Coordinate.isValid(position);
-        return ! Bit.isSet(this.x | this.o, position);
-    }
-
-    public boolean isEmpty(int x, int y, int z) {
-        return this.isEmpty(Coordinate.position(x, y, z));
-    }
-
-    public int numberEmptySquares() {
-        return Bit.countOnes(~(this.x | this.o));
-    }
-
-    public long emptySquares() {
-        return ~(this.x | this.o);
-    }
-
-    public long get(Player player) {
-        if (player == Player.EMPTY) {
-            return emptySquares();
-        } else if (player == Player.X) {
-            return this.x;
-        } else {
-            return this.o;
-        }
-    }
-
-    public Player get(int position) {
-        assert Coordinate.isValid(position);
-        if (Bit.isSet(this.x, position)) return Player.X;
-        if (Bit.isSet(this.o, position)) return Player.O;
-        return Player.EMPTY;
-    }
-
-    public Player get(int x, int y, int z) {
-        return get(Coordinate.position(x, y, z));
-    }
-
     @Override
     public boolean isOver() {
 		return Evaluate.isOver(this);
@@ -167,65 +132,88 @@ public class Board implements State<Integer> {
         return Long.hashCode(this.x) ^ Long.hashCode(this.o);
     }
 
-    // Image & printing functions
-
-    @Override
-    public String toString() {
-        int N = Coordinate.N;
-        int N2 = Coordinate.NSquared;
-        int N3 = Coordinate.NCubed;
-        String result = "";
-        String separator = "";
-
-        for (int position = 0; position < N3; position++) {
-            result += separator;
-            result += Player.toString(this.get(position));
-            if (position % N2 == 0) {
-                separator = " | ";
-            } else if (position % N == 0) {
-                separator = " ";
-            } else {
-                separator = "";
-            }
-        }
-        return result;
-    }
-
-
-    public void print() {
-        int N = Coordinate.N;
-        System.out.println();
-        for (int y = N-1; y >= 0; y--) {
-            for (int z = 0; z < N; z++) {
-                for (int x = 0; x < N; x++) {
-                    System.out.print(Player.toString(this.get(x, y, z)));
-                }
-                System.out.print("    ");
-            }
-            System.out.println();
-        }
-        System.out.println();
-    }
-
-
     // Generate new board for a given move
 
+    @Override
     public Board next(int position) {
         assert this.isEmpty(position);
         return new Board(this, position);
     }
 
-    @Override
-    public Board next(Integer position) {
-        return next(position.intValue());
-    }
-
     public Board next(int x, int y, int z) {
         return next(Coordinate.position(x, y, z));
     }
 
     @Override
-    public Iterable<Integer> moves() {
-        return Bit.ones(emptySquares());
+    public long moveMask() {
+        return this.emptySquares() & (this.result == Result.NONE ? -1L : 0);
+    }
+
+    public int randomMove(SplittableRandom random) {
+        // A valid move chosen uniformly at random (for random games in
+        // tests and self-play openings), -1 if the game is over
+        long moves = this.moveMask();
+        if (moves == 0) return -1;
+        for (int i = random.nextInt(Long.bitCount(moves)); i > 0; i--) {
+            moves &= moves - 1;
+        }
+        return Long.numberOfTrailingZeros(moves);
+    }
+
+    public static void main(String[] args) {
+        // Check the incremental line information (result, tallies, center
+        // control, line sets) and the evaluation against the same values
+        // computed from scratch, on every position of random games
+        Evaluate.setNoise(false, 0);
+        SplittableRandom random = new SplittableRandom(1);
+        int positions = 0;
+
+        for (int game = 0; game < 10000; game++) {
+            Board board = new Board();
+            while (true) {
+                check(board);
+                positions++;
+                if (Evaluate.isOver(board)) break;
+                board = board.next(board.randomMove(random));
+            }
+        }
+        System.out.println(positions + " positions checked");
+    }
+
+    private static void check(Board board) {
+        int result = Result.NONE;
+        int[] tallies = new int[Coordinate.N];   // By piece count, X's minus O's
+        for (int line = 0; line < Line.lines.length; line++) {
+            long mask = Line.lines[line].positions();
+            int xCount = Long.bitCount(board.x & mask);
+            int oCount = Long.bitCount(board.o & mask);
+            if (xCount == Coordinate.N) result = Result.X_WINS;
+            if (oCount == Coordinate.N) result = Result.O_WINS;
+            if (oCount == 0 && xCount < Coordinate.N) tallies[xCount]++;
+            if (xCount == 0 && oCount < Coordinate.N) tallies[oCount]--;
+
+            for (int count = 2; count <= 3; count++) {
+                if (board.hasLine(Player.X, count, line) != (oCount == 0 && xCount == count)
+                        || board.hasLine(Player.O, count, line) != (xCount == 0 && oCount == count)) {
+                    throw new AssertionError("Line set of line " + line + " differs on " + board);
+                }
+            }
+        }
+        if (result == Result.NONE && (board.x | board.o) == -1L) result = Result.TIE;
+
+        int center = 0;
+        for (int position = 0; position < Coordinate.NCubed; position++) {
+            if (Bit.isSet(board.x, position)) center += Evaluate.centerControl(position);
+            if (Bit.isSet(board.o, position)) center -= Evaluate.centerControl(position);
+        }
+
+        if (board.result != result
+                || board.ones != tallies[1] || board.twos != tallies[2] || board.threes != tallies[3]
+                || board.center != center) {
+            throw new AssertionError("Line information differs on " + board);
+        }
+        if (Evaluate.evaluate(board) != Evaluate.evaluate(board, tallies[1], tallies[2], tallies[3])) {
+            throw new AssertionError("Evaluation differs on " + board);
+        }
     }
 }
@@ -0,0 +1,125 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class Book {
+
+    // Opening book: best moves for positions near the start of the game,
+    // computed offline (see BookGenerator) and memory-mapped at run time.
+    //
+    // Positions are stored in canonical form (see Symmetry), so one entry
+    // answers for all the symmetric positions. File layout (big-endian):
+    //
+    //     int  MAGIC
+    //     int  VERSION
+    //     int  number of entries
+    //     entries, sorted by (x, o) as unsigned longs:
+    //         long x, long o, byte move (in canonical coordinates)
+
+    public static final int MAGIC = 0x51424F4B;   // "QBOK"
+    public static final int VERSION = 2;          // 2: canonical form under 192 symmetries
+
+    private static final int HEADER_BYTES = 12;
+    private static final int ENTRY_BYTES = 17;
+
+    private final MappedByteBuffer buffer;
+    private final int size;
+
+    private Book(MappedByteBuffer buffer, String path) throws IOException {
+        this.buffer = buffer;
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException(path + " is not an opening book");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported opening book version: " + buffer.getInt(4));
+        }
+        this.size = buffer.getInt(8);
+        if (this.size < 0 || buffer.capacity() < HEADER_BYTES + (long) this.size * ENTRY_BYTES) {
+            throw new IOException("Truncated opening book: " + path);
+        }
+    }
+
+    public static Book open(String path) throws IOException {
+        // The IOException messages are meant for the user
+        try (FileChannel channel = FileChannel.open(Path.of(path), StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return new Book(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), path);
+        } catch (NoSuchFileException e) {
+            throw new IOException("No such opening book: " + path);
+        }
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    // Lookup
+
+    public int lookup(Board board) {
+        // Best move for the board, or -1 if it is not in the book or the
+        // book's move is not a valid one (a square that is off the board or
+        // taken, from a damaged book or one with other canonical forms)
+        long x = board.get(Player.X);
+        long o = board.get(Player.O);
+        int symmetry = Symmetry.canonical(x, o);
+        int index = find(Symmetry.transform(x, symmetry), Symmetry.transform(o, symmetry));
+        if (index < 0) return -1;
+
+        int move = this.buffer.get(HEADER_BYTES + index * ENTRY_BYTES + 16);
+        if (move < 0 || move >= Coordinate.NCubed) return -1;
+        move = Symmetry.untransform(move, symmetry);
+        return Bit.isSet(board.moveMask(), move) ? move : -1;
+    }
+
+    private int find(long x, long o) {
+        // Binary search for the entry with the given canonical positions
+        int low = 0;
+        int high = this.size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int offset = HEADER_BYTES + middle * ENTRY_BYTES;
+            int compare = compare(this.buffer.getLong(offset), this.buffer.getLong(offset + 8), x, o);
+            if (compare < 0) {
+                low = middle + 1;
+            } else if (compare > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private static int compare(long x1, long o1, long x2, long o2) {
+        int compare = Long.compareUnsigned(x1, x2);
+        return compare != 0 ? compare : Long.compareUnsigned(o1, o2);
+    }
+
+    // Writing
+
+    public static void write(String path, long[][] entries) throws IOException {
+        // Entries are {x, o, move} with (x, o) in canonical form
+        long[][] sorted = entries.clone();
+        Arrays.sort(sorted, (a, b) -> compare(a[0], a[1], b[0], b[1]));
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(Path.of(path))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(sorted.length);
+            for (long[] entry : sorted) {
+                out.writeLong(entry[0]);
+                out.writeLong(entry[1]);
+                out.writeByte((int) entry[2]);
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+public class BookGenerator {
+
+    // Builds the opening book: every position reachable in fewer than
+    // -book-plies moves (one per class of symmetric positions) is searched
+    // to -plies depth, in parallel on -threads threads, and the best moves
+    // are written to the -book file.
+    //
+    //     java BookGenerator -book opening.book -book-plies 4 -plies 4 -threads 16 ordering
+
+    public static void main(String[] args) throws Exception {
+        Parameters params = new Parameters(args);
+        if (params.errors()) System.exit(1);
+        if (params.weights() != null) Evaluate.loadWeights(params.weights());
+        Evaluate.setNoise(params.noise(), params.seed());
+
+        String path = params.book() != null ? params.book() : "opening.book";
+        List<Board> positions = positions(params.bookPlies());
+        System.out.printf("%d positions up to ply %d, searched to depth %d on %d thread(s)\n",
+                positions.size(), params.bookPlies() - 1, params.plies(), params.threads());
+
+        // Each task has its own search (move ordering heuristics, etc.), but
+        // they all share one transposition table.
+        TranspositionTable table = new TranspositionTable(params.hash());
+        long start = System.nanoTime();
+
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, params.threads()));
+        long[][] entries = pool.submit(() -> positions.parallelStream().map(board -> {
+            Search search = new Search(table, params.plies(), 0).ordering(params.ordering());
+            int move = search.bestMove(board);
+            return new long[] { board.get(Player.X), board.get(Player.O), move };
+        }).toArray(long[][]::new)).get();
+        pool.shutdown();
+
+        Book.write(path, entries);
+        System.out.printf("Wrote %d entries to %s in %d s\n", entries.length, path,
+                (System.nanoTime() - start) / 1_000_000_000);
+    }
+
+    private static List<Board> positions(int plies) {
+        // Canonical forms of all positions reachable in fewer than the given
+        // number of moves where the game is not over
+        List<Board> result = new ArrayList<>();
+        List<Board> level = List.of(new Board());
+
+        for (int ply = 0; ply < plies && !level.isEmpty(); ply++) {
+            result.addAll(level);
+            if (ply + 1 == plies) break;
+
+            Set<Board> next = new HashSet<>();
+            for (Board board : level) {
+                Bit.BitIterator moves = new Bit.BitIterator(board.moveMask());
+                while (moves.hasNext()) {
+                    Board child = board.next(moves.next());
+                    if (!Evaluate.isOver(child)) next.add(Symmetry.canonical(child));
+                }
+            }
+            level = new ArrayList<>(next);
+        }
+        return result;
+    }
+}
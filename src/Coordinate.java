@@ -52,6 +52,22 @@ public class Coordinate {
         return toString(getX(position), getY(position), getZ(position));
     }
 
+    // Compact notation for game records and the engine protocol: the x, y
+    // and z of the square as digits from 0, with no separators ("213")
+
+    public static String toCompactString(int position) {
+        return "" + getX(position) + getY(position) + getZ(position);
+    }
+
+    public static int valueOf(String s) {
+        // Square in compact notation, or -1 if s is not a valid square
+        if (s.length() != 3) return -1;
+        int x = s.charAt(0) - '0';
+        int y = s.charAt(1) - '0';
+        int z = s.charAt(2) - '0';
+        return isValid(x, y, z) ? position(x, y, z) : -1;
+    }
+
     // Ask user to input coordinates from console
 
     private static class RetryException extends Exception {}  // Retry entering coordinates (restart from X)
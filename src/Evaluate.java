@@ -1,165 +1,211 @@
-import java.util.Random;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class Evaluate {
-	private static final Random random = new Random();
-	public static boolean isOver(Board board) {
-		if (winner(board) != null) return true;
-		return board.numberEmptySquares() == 0;
+	// Noise (-2 to +2) added to positions with fewer than 10 pieces, so that
+	// the AI does not always open the same way. It is a hash of the position
+	// and a seed: the same position always gets the same noise in a run (and
+	// in any run with the same seed), which keeps transposition table
+	// scores consistent and needs no state shared between threads.
+	private static boolean noise = true;
+	private static long seed = System.nanoTime();
+
+	// Evaluation weights, one per feature (see features()). The defaults can
+	// be replaced at startup from a weights file (see loadWeights and Tuner).
+	public static final int FORCED_WINS = 0;  // Four corners / four centers in a plane, intersecting threes
+	public static final int FORKS = 1;
+	public static final int THREES = 2;
+	public static final int TWOS = 3;
+	public static final int ONES = 4;
+	public static final int CENTER = 5;
+	public static final int FEATURES = 6;
+
+	private static final String[] names = { "forced_wins", "forks", "threes", "twos", "ones", "center" };
+	private static final int[] defaults = { 50000, 10000, 500, 200, 30, 50 };
+	private static int[] weights = defaults.clone();
+
+	public static boolean isOver(AbstractBoard board) {
+		return board.result() != Result.NONE;
 	}
 
-	public static String winner(Board board) {
-		long x = board.get(Player.X);
-		long o = board.get(Player.O);
-
-		for (Line line : Line.lines) {
-			long mask = line.positions();
+	public static int result(AbstractBoard board) {
+		// Computed once per board as pieces are placed (see Result)
+		return board.result();
+	}
 
-			if ((x & mask) == mask)
-				return "X Wins";
+	public static String winner(AbstractBoard board) {
+		return Result.toString(board.result()); // null if game not over
+	}
 
-			if ((o & mask) == mask)
-				return "O Wins";
+	public static int score(AbstractBoard board) {
+		switch (board.result()) {
+			case Result.X_WINS: return +500000000;
+			case Result.O_WINS: return -500000000;
+			default: return 0; // tie or game not over
 		}
+	}
 
-		if (board.numberEmptySquares() == 0)
-			return "Tie";
-
-		return null; // game not over
+	public static int evaluate(AbstractBoard board) {
+		// Line counts (X's minus O's) are maintained incrementally by the board
+		return evaluate(board, board.ones(), board.twos(), board.threes());
 	}
-	public static int score(Board board) {
-		String w = winner(board);
-		if (w == null) return 0;
-		if (w.equals("X Wins")) return +500000000;
-		if (w.equals("O Wins")) return -500000000;
-		return 0; // tie
+
+	public static int evaluate(AbstractBoard board, LineScan scan) {
+		// Evaluation with the line tallies scanned from scratch
+		if (board.result() != Result.NONE) return score(board);
+		long tallies = scan.scan(board.get(Player.X), board.get(Player.O));
+		return evaluate(board, LineScan.ones(tallies), LineScan.twos(tallies), LineScan.threes(tallies));
 	}
 
-	public static int evaluate(Board board) {
-		String w = winner(board);
-		if (w != null) return score(board);
+	public static int evaluate(AbstractBoard board, int ones, int twos, int threes) {
+		// Evaluation with the given line tallies (see LineScan)
+		if (board.result() != Result.NONE) return score(board);
 
-		long xmask = board.get(Player.X);
-		long omask = board.get(Player.O);
-		long allOccupied = xmask | omask;
+		long allOccupied = board.get(Player.X) | board.get(Player.O);
+		int[] weights = Evaluate.weights;
 
-		int xThrees = 0;      // 3 in a row
-		int oThrees = 0;
-		int xTwos = 0;        // 2 in a row unblocked
-		int oTwos = 0;
-		int xOnes = 0;        // 1 in a row unblocked
-		int oOnes = 0;
+		int score = 0;
 
-		long xTwoMask = 0L;   // Track which lines have 2 in a row for fork detection
-		long oTwoMask = 0L;
-		long xThreeMask = 0L; // Track which lines have 3 in a row
-		long oThreeMask = 0L;
-		long blockedLines = 0L;
-		for (int i = 0; i < Line.lines.length; i++) {
+		// Forced wins (four corners, four centers in a plane)
+		score += (checkForcedWins(board, Player.X) - checkForcedWins(board, Player.O)) * weights[FORCED_WINS];
 
-			Line line = Line.lines[i];
-			long mask = line.positions();
+		score += threes * weights[THREES];
 
-			long xMasked = xmask & mask;
-			long oMasked = omask & mask;
+		score += (countForks(board, Player.X) - countForks(board, Player.O)) * weights[FORKS];
 
-			int xCount = Long.bitCount(xMasked);
-			int oCount = Long.bitCount(oMasked);
+		// 2 in a rows
+		score += twos * weights[TWOS];
 
-			if (xCount > 0 && oCount > 0) {
-				blockedLines |= (1L << i);
-				continue;
-			}
+		// 1 in a row
+		score += ones * weights[ONES];
 
-			// X's pieces in this line
-			if (oCount == 0) {
-				if (xCount == 3) {
-					xThrees++;
-					xThreeMask |= (1L << i);
-				} else if (xCount == 2) {
-					xTwoMask |= (1L << i);
-					xTwos++;
-				} else if (xCount == 1) {
-					xOnes++;
-				}
-			}
-			// O's pieces in this line
-			else if (xCount == 0) {
-				if (oCount == 3) {
-					oThrees++;
-					oThreeMask |= (1L << i);
-				} else if (oCount == 2) {
-					oTwoMask |= (1L << i);
-					oTwos++;
-				} else if (oCount == 1) {
-					oOnes++;
-				}
-			}
+		// Control valuable squares
+		score += board.center() * weights[CENTER];
+		if (noise && Long.bitCount(allOccupied) < 10) {
+			score += noise(board.hash());
 		}
+		return score;
+	}
 
-		// Fork detection
-		int xForks = countForks(xTwoMask, xmask, omask);
-		int oForks = countForks(oTwoMask, omask, xmask);
+	private static int noise(long hash) {
+		// Value between -2 and +2 (mix function of SplittableRandom)
+		long z = hash ^ seed;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		z = z ^ (z >>> 31);
+		return (int) Long.remainderUnsigned(z, 5) - 2;
+	}
 
-		// Center control
-		int xCenter = countCenterControl(xmask);
-		int oCenter = countCenterControl(omask);
+	public static void setNoise(boolean noise, long seed) {
+		// Turn the noise on or off, and seed it
+		Evaluate.noise = noise;
+		Evaluate.seed = seed;
+	}
 
-		int xForcedWins = checkForcedWins(xmask, omask, allOccupied);
-		int oForcedWins = checkForcedWins(omask, xmask, allOccupied);
+	public static void setUp(Parameters params) {
+		// The evaluation given by the options (-weights, -no-noise, -seed),
+		// for the programs' main methods. A weights file that cannot be
+		// read is reported, and the program exits.
+		if (params.weights() != null) {
+			try {
+				loadWeights(params.weights());
+			} catch (IOException e) {
+				System.err.println("Cannot read weights file " + params.weights());
+				System.exit(1);
+			} catch (IllegalArgumentException e) {
+				System.err.println(e.getMessage());
+				System.exit(1);
+			}
+		}
+		setNoise(params.noise(), params.seed());
+	}
 
-		int score = 0;
+	public static long fingerprint(String evaluator) {
+		// Changes with anything that changes the scores of the named
+		// evaluator (see Evaluator): the weights and the noise, so that a
+		// stored score can be checked against the evaluation in use
+		long hash = evaluator.hashCode();
+		hash = hash * 31 + Arrays.hashCode(weights);
+		hash = hash * 31 + (noise ? 1 : 0);
+		if (noise) hash = hash * 31 + seed;
+		return hash;
+	}
 
-		// Forced wins (four corners, four centers in a plane)
-		score += (xForcedWins - oForcedWins) * 50000;
+	public static void features(AbstractBoard board, int[] features) {
+		// The terms of evaluate() before weighting (X's minus O's): the
+		// evaluation is their dot product with the weights, plus noise
+		features[FORCED_WINS] = checkForcedWins(board, Player.X) - checkForcedWins(board, Player.O);
+		features[FORKS] = countForks(board, Player.X) - countForks(board, Player.O);
+		features[THREES] = board.threes();
+		features[TWOS] = board.twos();
+		features[ONES] = board.ones();
+		features[CENTER] = board.center();
+	}
 
-		score += (xThrees - oThrees) * 500;
+	// Weights
 
-		score += (xForks - oForks) * 10000;
+	public static int[] weights() {
+		return weights.clone();
+	}
 
-		// 2 in a rows
-		score += (xTwos - oTwos) * 200;
+	public static void setWeights(int[] weights) {
+		if (weights.length != FEATURES) throw new IllegalArgumentException("Expected " + FEATURES + " weights");
+		Evaluate.weights = weights.clone();
+	}
 
-		// 1 in a row
-		score += (xOnes - oOnes) * 30;
+	public static String name(int feature) {
+		return names[feature];
+	}
 
-		// Control valuable squares
-		score += (xCenter - oCenter) * 50;
-		if (Long.bitCount(allOccupied) < 10) {
-			score += random.nextInt(5) - 2; // Random value between -2 and +2
+	public static void loadWeights(String path) throws IOException {
+		// Weights file: one "<name> <weight>" per line; # starts a comment.
+		// Features not in the file keep their default weight.
+		int[] weights = defaults.clone();
+		for (String line : Files.readAllLines(Path.of(path))) {
+			line = line.replaceAll("#.*", "").trim();
+			if (line.isEmpty()) continue;
+
+			String[] words = line.split("\\s+");
+			int feature = List.of(names).indexOf(words[0]);
+			if (feature < 0 || words.length != 2) {
+				throw new IllegalArgumentException("Invalid line in " + path + ": " + line);
+			}
+			weights[feature] = Integer.parseInt(words[1]);
 		}
-		return score;
+		setWeights(weights);
 	}
 
-	private static int countForks(long twoMask, long playerBoard, long opponentBoard) {
-		int forkCount = 0;
-		long allOccupied = playerBoard | opponentBoard;
+	public static void saveWeights(String path, int[] weights, String comment) throws IOException {
+		List<String> lines = new ArrayList<>();
+		lines.add("# " + comment);
+		for (int feature = 0; feature < FEATURES; feature++) {
+			lines.add(names[feature] + " " + weights[feature]);
+		}
+		Files.write(Path.of(path), lines);
+	}
 
-		// For each 2 in a row, check what happens if we extend it
-		for (int lineIdx = 0; lineIdx < Line.lines.length; lineIdx++) {
-			if ((twoMask & (1L << lineIdx)) == 0) continue;
+	public static int countForks(AbstractBoard board, Player player) {
+		// Empty squares on two or more of the player's open 2 in a rows:
+		// playing there makes that many 3 in a rows at once. Each such square
+		// is counted once for every 2 in a row through it.
+		int forkCount = 0;
+		long empty = board.emptySquares();
 
-			Line line = Line.lines[lineIdx];
-			long linePos = line.positions();
-			long emptyInLine = linePos & ~allOccupied;
+		for (int line = board.nextLine(player, 2, 0); line >= 0; line = board.nextLine(player, 2, line + 1)) {
+			long squares = Line.lines[line].positions() & empty;
 
 			// For each empty square in this 2 in a row
-			for (int emptyPos : Bit.ones(emptyInLine)) {
-				// Temporarily place a piece
-				long testBoard = playerBoard | (1L << emptyPos);
+			for (; squares != 0; squares &= squares - 1) {
+				int emptyPos = Long.numberOfTrailingZeros(squares);
 
-				// Count how many unblocked 3 in a rows this creates
+				// Count how many unblocked 3 in a rows playing here creates
 				int threatsCreated = 0;
-				for (Line checkLine : Line.lines) {
-					long mask = checkLine.positions();
-
-					// Only check lines containing this position
-					if (!checkLine.contains(emptyPos)) continue;
-
-					int playerCount = Long.bitCount(testBoard & mask);
-					int opponentCount = Long.bitCount(opponentBoard & mask);
-
-					// Unblocked 3 in a row
-					if (playerCount == 3 && opponentCount == 0) {
+				for (int other : Line.through(emptyPos)) {
+					if (board.hasLine(player, 2, other)) {
 						threatsCreated++;
 					}
 				}
@@ -173,6 +219,18 @@ public class Evaluate {
 		return forkCount;
 	}
 
+	private static final int[] centerControl = new int[Coordinate.NCubed];
+	static {
+		for (int position = 0; position < Coordinate.NCubed; position++) {
+			centerControl[position] = countCenterControl(1L << position);
+		}
+	}
+
+	public static int centerControl(int position) {
+		// Center control value of a single square
+		return centerControl[position];
+	}
+
 	private static int countCenterControl(long board) {
 		int control = 0;
 
@@ -210,12 +268,14 @@ public class Evaluate {
 
 		return control;
 	}
-	private static int checkForcedWins(long playerBoard, long opponentBoard, long allOccupied) {
+	private static int checkForcedWins(AbstractBoard board, Player player) {
+		long playerBoard = board.get(player);
+		long opponentBoard = board.get(player.other());
 		int forcedWins = 0;
 
 		// Check each plane for corner/center
-		for (Plane plane : Plane.planes) {
-			long planeMask = plane.positions();
+		for (int plane = 0; plane < Plane.planes.length; plane++) {
+			long planeMask = Plane.planes[plane].positions();
 			long playerInPlane = playerBoard & planeMask;
 			long opponentInPlane = opponentBoard & planeMask;
 
@@ -226,93 +286,66 @@ public class Evaluate {
 
 			// Four corners pattern
 			if (playerCount == 4) {
-				if (isFourCorners(playerInPlane, planeMask)) {
+				if (isFourCorners(playerInPlane, plane)) {
 					forcedWins++;
 				}
 			}
 
 			// Four centers pattern (2x2 center block)
 			if (playerCount == 4) {
-				if (isFourCenters(playerInPlane, planeMask)) {
+				if (isFourCenters(playerInPlane, plane)) {
 					forcedWins++;
 				}
 			}
 		}
 
 		// Check for two intersecting 3-in-a-rows with shared empty square
-		forcedWins += checkIntersectingThrees(playerBoard, opponentBoard, allOccupied);
+		forcedWins += checkIntersectingThrees(board, player);
 
 		return forcedWins;
 	}
 
-	private static boolean isFourCorners(long playerInPlane, long planeMask) {
-		int[] positions = new int[16];
-		int count = 0;
-		for (int pos : Bit.ones(planeMask)) {
-			positions[count++] = pos;
+	// Corners and center 2x2 block of each plane, by plane index
+	private static final long[] corners = new long[Plane.planes.length];
+	private static final long[] centers = new long[Plane.planes.length];
+	static {
+		for (int i = 0; i < Plane.planes.length; i++) {
+			int[] positions = new int[16];
+			int count = 0;
+			for (int pos : Bit.ones(Plane.planes[i].positions())) {
+				positions[count++] = pos;
+			}
+			if (count != 16) continue;
+
+			// Corners are at indices 0, 3, 12, 15 of the 4x4 grid, the
+			// center 2x2 block at indices 5, 6, 9, 10
+			corners[i] = (1L << positions[0]) | (1L << positions[3])
+					| (1L << positions[12]) | (1L << positions[15]);
+			centers[i] = (1L << positions[5]) | (1L << positions[6])
+					| (1L << positions[9]) | (1L << positions[10]);
 		}
-
-		if (count != 16) return false;
-
-		// Check if the 4 corners are occupied
-		long corners = 0L;
-		corners |= (1L << positions[0]);
-		corners |= (1L << positions[3]);
-		corners |= (1L << positions[12]);
-		corners |= (1L << positions[15]);
-
-		return (playerInPlane & corners) == corners;
 	}
 
+	private static boolean isFourCorners(long playerInPlane, int plane) {
+		return corners[plane] != 0 && (playerInPlane & corners[plane]) == corners[plane];
+	}
 
-	private static boolean isFourCenters(long playerInPlane, long planeMask) {
-		int[] positions = new int[16];
-		int count = 0;
-		for (int pos : Bit.ones(planeMask)) {
-			positions[count++] = pos;
-		}
-
-		if (count != 16) return false;
-
-		// Center 2x2 block in a 4x4 grid is at indices 5, 6, 9, 10
-		long centers = 0L;
-		centers |= (1L << positions[5]);
-		centers |= (1L << positions[6]);
-		centers |= (1L << positions[9]);
-		centers |= (1L << positions[10]);
-
-		return (playerInPlane & centers) == centers;
+	private static boolean isFourCenters(long playerInPlane, int plane) {
+		return centers[plane] != 0 && (playerInPlane & centers[plane]) == centers[plane];
 	}
 
-	private static int checkIntersectingThrees(long playerBoard, long opponentBoard, long allOccupied) {
+	private static int checkIntersectingThrees(AbstractBoard board, Player player) {
 		int intersectingThrees = 0;
+		long empty = board.emptySquares();
 
-		// Find all lines with 3 pieces
-		for (int i = 0; i < Line.lines.length; i++) {
-			Line line1 = Line.lines[i];
-			long mask1 = line1.positions();
-
-			int playerCount1 = Long.bitCount(playerBoard & mask1);
-			int opponentCount1 = Long.bitCount(opponentBoard & mask1);
-
-			// Skip if not exactly 3 or blocked
-			if (playerCount1 != 3 || opponentCount1 != 0) continue;
-
-			// Find the empty square in this line
-			long empty1 = mask1 & ~allOccupied;
-			if (Long.bitCount(empty1) != 1) continue;
+		// Lines with 3 pieces, unblocked
+		for (int i = board.nextLine(player, 3, 0); i >= 0; i = board.nextLine(player, 3, i + 1)) {
+			// The empty square in this line
+			long empty1 = Line.lines[i].positions() & empty;
 
 			// Check if another 3-in-a-row intersects at this empty square
-			for (int j = i + 1; j < Line.lines.length; j++) {
-				Line line2 = Line.lines[j];
-				long mask2 = line2.positions();
-
-				int playerCount2 = Long.bitCount(playerBoard & mask2);
-				int opponentCount2 = Long.bitCount(opponentBoard & mask2);
-
-				if (playerCount2 != 3 || opponentCount2 != 0) continue;
-
-				long empty2 = mask2 & ~allOccupied;
+			for (int j = board.nextLine(player, 3, i + 1); j >= 0; j = board.nextLine(player, 3, j + 1)) {
+				long empty2 = Line.lines[j].positions() & empty;
 
 				// If both lines share the same empty square, it's a forced win
 				if (empty1 == empty2) {
@@ -0,0 +1,21 @@
+public interface Evaluator {
+
+    // Static evaluation used by the search: positive scores favor X.
+    //
+    //     standard   Evaluate.evaluate
+    //     more       EvaluateMore.evaluate
+    //     vector     VectorEvaluate.evaluate
+    //     table      Evaluate.evaluate with the tallies from TableLineScan
+
+    int evaluate(AbstractBoard board);
+
+    public static Evaluator valueOf(String name) {
+        switch (name) {
+            case "standard": return Evaluate::evaluate;
+            case "more":     return EvaluateMore::evaluate;
+            case "vector":   return VectorEvaluate::evaluate;
+            case "table":    return new TableLineScan()::evaluate;
+            default: throw new IllegalArgumentException("Unknown evaluator: " + name);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+public class GameServer {
+
+    // HTTP/JSON game service: many concurrent games in one JVM.
+    //
+    //     POST   /games                        New game
+    //     GET    /games/<id>                   State of the game
+    //     POST   /games/<id>/move?square=<m>   Human move (compact notation)
+    //     POST   /games/<id>/ai                AI move
+    //     POST   /games/<id>/undo              Take back the last move
+    //     DELETE /games/<id>                   End the game
+    //
+    // Every response but DELETE's is the state of the game:
+    //
+    //     {"id":1,"board":"x...o...","turn":"X","result":null,"moves":["111","222"],"move":"222"}
+    //
+    // board is the 64 squares in Board.valueOf format, result is null, "X",
+    // "O" or "draw", and move is the move just played, if any. Errors are
+    // {"error":"..."} with status 400 (bad request), 404 (no such game), 405
+    // (wrong method) or 409 (game over, no move to undo).
+    //
+    // Requests are handled on virtual threads, one per request. AI moves are
+    // searched on a fixed pool of -threads platform threads (one per
+    // processor by default), each with its own Search, so CPU-bound
+    // searches never tie up the carrier threads the virtual threads run on.
+    // The transposition table (-hash, and -hash-file to keep it in a file) is
+    // shared by all searches.
+    //
+    //     java GameServer -port 8080 -plies 4 -threads 8 ordering
+    //
+    // See LoadTest for a load generator.
+
+    private static final class Session {
+        // One game. A ReentrantLock rather than synchronized, which would
+        // pin the virtual thread to its carrier while it waits for a search.
+        final long id;
+        final ReentrantLock lock = new ReentrantLock();
+        final Board[] boards = new Board[Coordinate.NCubed + 1];   // boards[count] is current
+        final int[] moves = new int[Coordinate.NCubed];
+        int count = 0;
+
+        Session(long id) {
+            this.id = id;
+            this.boards[0] = new Board();
+        }
+
+        Board board() {
+            return this.boards[this.count];
+        }
+
+        void play(int move) {
+            this.moves[this.count] = move;
+            this.boards[this.count + 1] = this.board().next(move);
+            this.count++;
+        }
+    }
+
+    private static final class RequestException extends Exception {
+        final int status;
+
+        RequestException(int status, String message) {
+            super(message, null, false, false);
+            this.status = status;
+        }
+    }
+
+    private final Map<Long, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final ExecutorService searches;      // Platform threads for the AI
+    private final ThreadLocal<Search> search;    // One Search per pool thread
+
+    public GameServer(Parameters params) {
+        int threads = params.threads(Runtime.getRuntime().availableProcessors());
+        int depth = params.time() > 0 ? Search.MAX_DEPTH : params.plies();
+        TranspositionTable table = TranspositionTable.of(params);
+
+        this.searches = Executors.newFixedThreadPool(threads);
+        this.search = ThreadLocal.withInitial(() -> new Search(table, depth, params.time())
+                .ordering(params.ordering()).quiescence(params.quiescence())
+                .reductions(params.reductions()).futility(params.futility())
+                .evaluator(Evaluator.valueOf(params.eval())));
+    }
+
+    public static void main(String[] args) throws IOException {
+        Parameters params = new Parameters(args);
+        if (params.errors()) System.exit(1);
+        Evaluate.setUp(params);
+
+        GameServer service = new GameServer(params);
+        HttpServer server = HttpServer.create(new InetSocketAddress(params.port()), 1024);
+        server.createContext("/games", service::handle);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+        System.out.println("Listening on port " + params.port());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        int status = 200;
+        String body;
+        try {
+            body = route(exchange);
+        } catch (RequestException e) {
+            status = e.status;
+            body = error(e.getMessage());
+        } catch (RuntimeException | InterruptedException | ExecutionException e) {
+            status = 500;
+            body = error(e.toString());
+        }
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    private String route(HttpExchange exchange)
+            throws RequestException, InterruptedException, ExecutionException {
+        // /games, /games/<id> or /games/<id>/<action>
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().split("/");
+
+        if (path.length == 2) {
+            require(method, "POST");
+            Session session = new Session(this.nextId.getAndIncrement());
+            this.sessions.put(session.id, session);
+            return json(session, -1);
+        }
+
+        Session session = session(path[2]);
+        if (path.length == 3) {
+            switch (method) {
+                case "GET":
+                    return locked(session, () -> json(session, -1));
+                case "DELETE":
+                    this.sessions.remove(session.id);
+                    return "{}";
+                default:
+                    throw new RequestException(405, "Method not allowed: " + method);
+            }
+        }
+
+        require(method, "POST");
+        switch (path.length == 4 ? path[3] : "") {
+            case "move":
+                return locked(session, () -> move(session, square(exchange.getRequestURI().getQuery())));
+            case "ai":
+                return locked(session, () -> ai(session));
+            case "undo":
+                return locked(session, () -> undo(session));
+            default:
+                throw new RequestException(404, "Not found: " + exchange.getRequestURI().getPath());
+        }
+    }
+
+    // Actions, called with the session locked
+
+    private String move(Session session, int move) throws RequestException {
+        Board board = session.board();
+        if (Evaluate.isOver(board)) throw new RequestException(409, "Game over");
+        if (!board.isEmpty(move)) throw new RequestException(400, "Square taken: " + Coordinate.toCompactString(move));
+        session.play(move);
+        return json(session, move);
+    }
+
+    private String ai(Session session) throws RequestException, InterruptedException, ExecutionException {
+        Board board = session.board();
+        if (Evaluate.isOver(board)) throw new RequestException(409, "Game over");
+        int move = this.searches.submit(() -> this.search.get().bestMove(board)).get();
+        session.play(move);
+        return json(session, move);
+    }
+
+    private String undo(Session session) throws RequestException {
+        if (session.count == 0) throw new RequestException(409, "No move to undo");
+        session.count--;
+        return json(session, -1);
+    }
+
+    // Helpers
+
+    private interface Action {
+        String run() throws RequestException, InterruptedException, ExecutionException;
+    }
+
+    private static String locked(Session session, Action action)
+            throws RequestException, InterruptedException, ExecutionException {
+        session.lock.lock();
+        try {
+            return action.run();
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    private static void require(String method, String expected) throws RequestException {
+        if (!method.equals(expected)) throw new RequestException(405, "Method not allowed: " + method);
+    }
+
+    private Session session(String id) throws RequestException {
+        Session session = null;
+        try {
+            session = this.sessions.get(Long.parseLong(id));
+        } catch (NumberFormatException e) {
+            // Not a game id
+        }
+        if (session == null) throw new RequestException(404, "No such game: " + id);
+        return session;
+    }
+
+    private static int square(String query) throws RequestException {
+        // square=<m> from the query string
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                if (parameter.startsWith("square=")) {
+                    int square = Coordinate.valueOf(parameter.substring("square=".length()));
+                    if (square >= 0) return square;
+                }
+            }
+        }
+        throw new RequestException(400, "Missing or invalid square");
+    }
+
+    private static String error(String message) {
+        return "{\"error\":\"" + message.replace("\\", "\\\\").replace("\"", "\\\"") + "\"}";
+    }
+
+    private static String json(Session session, int move) {
+        Board board = session.board();
+        StringBuilder json = new StringBuilder();
+        json.append("{\"id\":").append(session.id);
+
+        json.append(",\"board\":\"");
+        for (int position = 0; position < Coordinate.NCubed; position++) {
+            json.append(Player.toString(board.get(position)).toLowerCase());
+        }
+
+        json.append("\",\"turn\":");
+        json.append(Evaluate.isOver(board) ? "null" : "\"" + board.turn() + "\"");
+
+        json.append(",\"result\":");
+        switch (board.result()) {
+            case Result.X_WINS: json.append("\"X\""); break;
+            case Result.O_WINS: json.append("\"O\""); break;
+            case Result.TIE:    json.append("\"draw\""); break;
+            default:            json.append("null"); break;
+        }
+
+        json.append(",\"moves\":[");
+        for (int i = 0; i < session.count; i++) {
+            if (i > 0) json.append(',');
+            json.append('"').append(Coordinate.toCompactString(session.moves[i])).append('"');
+        }
+        json.append(']');
+
+        if (move >= 0) json.append(",\"move\":\"").append(Coordinate.toCompactString(move)).append('"');
+        return json.append('}').toString();
+    }
+}
@@ -0,0 +1,14 @@
+public interface IntState {
+
+    // Game state with moves that are small ints (squares 0-63), so that
+    // generating moves creates no Integer objects. The valid moves are the
+    // bits of a long.
+
+    public int score();               // Score when game is over
+    public int evaluate();            // Board evaluation function
+    public boolean isOver();          // Is the game over?
+    public void print();              // Display the state of the game
+    public String winner();           // Display text for the winner
+    public long moveMask();           // Valid moves in this state, one bit each
+    public IntState next(int move);   // Next state for the given move
+}
@@ -197,6 +197,28 @@ public class Line {
         return map.get(positions);
     }
 
+    // Indexes (in lines[]) of the lines through each position
+
+    private static final int[][] through = new int[Coordinate.NCubed][];
+    static {
+        for (int position = 0; position < Coordinate.NCubed; position++) {
+            int count = 0;
+            for (Line line : lines) {
+                if (line.contains(position)) count++;
+            }
+            through[position] = new int[count];
+            count = 0;
+            for (int i = 0; i < lines.length; i++) {
+                if (lines[i].contains(position)) through[position][count++] = i;
+            }
+        }
+    }
+
+    public static int[] through(int position) {
+        assert Coordinate.isValid(position);
+        return through[position];
+    }
+
     public static void main(String[] args) {
         int base = args.length > 0 ? Integer.parseInt(args[0]) : 0;
         for (Line line : lines) {
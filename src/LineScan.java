@@ -0,0 +1,45 @@
+public interface LineScan {
+
+    // Line tallies computed from scratch by scanning all 76 lines: X's count
+    // minus O's count of the lines holding exactly one, two or three pieces
+    // of one player and none of the other (the same values the board keeps
+    // incrementally, see AbstractBoard). The three tallies are packed into a
+    // long, 16 bits each; see ones(), twos() and threes(). The packing is
+    // additive: the sum of packed tallies is the packed sum, so a scan can
+    // add up packed per-line values (see TableLineScan).
+
+    long scan(long x, long o);
+
+    default int evaluate(AbstractBoard board) {
+        // Evaluate.evaluate with the tallies from this scan
+        return Evaluate.evaluate(board, this);
+    }
+
+    public static long pack(int ones, int twos, int threes) {
+        return ones + ((long) twos << 16) + ((long) threes << 32);
+    }
+
+    public static int ones(long tallies) {
+        return (short) tallies;
+    }
+
+    public static int twos(long tallies) {
+        return (short) ((tallies - ones(tallies)) >> 16);
+    }
+
+    public static int threes(long tallies) {
+        return (int) ((tallies - ones(tallies) - ((long) twos(tallies) << 16)) >> 32);
+    }
+
+    public static LineScan best() {
+        // The Vector API version if it was compiled (src-vector/, see
+        // pom.xml) and the jdk.incubator.vector module is available (java
+        // --add-modules jdk.incubator.vector), else scalar. Loaded by name
+        // so that src/ compiles without the module.
+        try {
+            return (LineScan) Class.forName("VectorLineScan").getDeclaredConstructor().newInstance();
+        } catch (LinkageError | ReflectiveOperationException e) {
+            return new ScalarLineScan();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class LoadTest {
+
+    // Load generator for GameServer: -clients games at a time, -games in all,
+    // against the server on localhost:-port. In each game the client asks for
+    // an AI move, answers with a random move, and so on until the game is
+    // over. Prints the latency of the AI move requests (p50, p90, p99, max)
+    // and the throughput.
+    //
+    //     java GameServer -port 8080 -plies 3 ordering &
+    //     java LoadTest -port 8080 -clients 1000 -games 5000
+
+    private static final Pattern ID = Pattern.compile("\"id\":(\\d+)");
+    private static final Pattern BOARD = Pattern.compile("\"board\":\"([^\"]*)\"");
+    private static final Pattern RESULT = Pattern.compile("\"result\":null");
+
+    public static void main(String[] args) throws Exception {
+        Parameters params = new Parameters(args);
+        if (params.errors()) System.exit(1);
+
+        String url = "http://localhost:" + params.port() + "/games";
+        int games = params.games();
+        System.out.printf("%d games, %d at a time, against %s\n", games, params.clients(), url);
+
+        ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+
+        AtomicInteger started = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        long[][] latencies = new long[params.clients()][];   // AI move times, by client
+        long start = System.nanoTime();
+
+        for (int client = 0; client < params.clients(); client++) {
+            int index = client;
+            clients.submit(() -> {
+                // Play games until all have been started
+                SplittableRandom random = new SplittableRandom(index);
+                long[] times = new long[256];
+                int count = 0;
+                while (started.getAndIncrement() < games) {
+                    try {
+                        long[] game = play(http, url, random);
+                        if (count + game.length > times.length) {
+                            times = Arrays.copyOf(times, 2 * (count + game.length));
+                        }
+                        System.arraycopy(game, 0, times, count, game.length);
+                        count += game.length;
+                    } catch (Exception e) {
+                        if (failed.getAndIncrement() == 0) System.err.println("Game failed: " + e);
+                    }
+                }
+                latencies[index] = Arrays.copyOf(times, count);
+                return null;
+            });
+        }
+        clients.shutdown();
+        clients.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("%d games (%d failed) in %.1f s\n", games, failed.get(), seconds);
+        System.out.printf("%d AI moves, %.0f per second\n", all.length, all.length / seconds);
+        if (all.length > 0) {
+            System.out.printf("AI move latency (ms): p50 %.1f, p90 %.1f, p99 %.1f, max %.1f\n",
+                    percentile(all, 50), percentile(all, 90), percentile(all, 99), all[all.length - 1] / 1e6);
+        }
+    }
+
+    private static long[] play(HttpClient http, String url, SplittableRandom random) throws Exception {
+        // One game; returns the latencies of its AI moves (nanoseconds)
+        String state = post(http, url);
+        String game = url + "/" + find(ID, state);
+        long[] times = new long[Coordinate.NCubed];
+        int count = 0;
+
+        while (true) {
+            long start = System.nanoTime();
+            state = post(http, game + "/ai");
+            times[count++] = System.nanoTime() - start;
+            if (!RESULT.matcher(state).find()) break;
+
+            // Random reply
+            String board = find(BOARD, state);
+            int empty = (int) board.chars().filter(c -> c == '.').count();
+            int square = -1;
+            for (int i = random.nextInt(empty); i >= 0; i--) {
+                square = board.indexOf('.', square + 1);
+            }
+            state = post(http, game + "/move?square=" + Coordinate.toCompactString(square));
+            if (!RESULT.matcher(state).find()) break;
+        }
+
+        http.send(HttpRequest.newBuilder(URI.create(game)).DELETE().build(), HttpResponse.BodyHandlers.discarding());
+        return Arrays.copyOf(times, count);
+    }
+
+    private static String post(HttpClient http, String url) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(response.statusCode() + " " + response.body());
+        }
+        return response.body();
+    }
+
+    private static String find(Pattern pattern, String json) {
+        Matcher matcher = pattern.matcher(json);
+        if (!matcher.find()) throw new IllegalStateException("Unexpected response: " + json);
+        return matcher.group(1);
+    }
+
+    private static double percentile(long[] sorted, int percent) {
+        int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
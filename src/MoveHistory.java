@@ -0,0 +1,65 @@
+import java.util.Arrays;
+
+public class MoveHistory {
+
+    // Move ordering heuristics learned during the search:
+    //
+    //   Killer moves: the last two moves that caused a beta cutoff at each
+    //   ply. A move that refutes one line of play often refutes its siblings.
+    //
+    //   History heuristic: a score per (player, square) incremented by
+    //   depth * depth whenever the move causes a cutoff anywhere in the tree.
+
+    private static final int KILLERS = 2;   // Killer moves kept per ply
+
+    private final int[][] killers = new int[Search.MAX_DEPTH + 1][KILLERS];
+    private final int[][] history = new int[2][Coordinate.NCubed];
+
+    public MoveHistory() {
+        clear();
+    }
+
+    public int killer(int ply, int index) {
+        return this.killers[ply][index];
+    }
+
+    public int killers() {
+        return KILLERS;
+    }
+
+    public int history(Player player, int position) {
+        return this.history[player.ordinal()][position];
+    }
+
+    public void cutoff(Player player, int position, int ply, int depth) {
+        // Record a move that caused a beta cutoff
+        int[] killers = this.killers[ply];
+        if (killers[0] != position) {
+            killers[1] = killers[0];
+            killers[0] = position;
+        }
+        this.history[player.ordinal()][position] += depth * depth;
+    }
+
+    public void age() {
+        // Called before each new search: killers refer to plies of the old
+        // search and are dropped; history scores decay but are kept.
+        for (int[] killers : this.killers) {
+            Arrays.fill(killers, -1);
+        }
+        for (int[] scores : this.history) {
+            for (int position = 0; position < scores.length; position++) {
+                scores[position] /= 2;
+            }
+        }
+    }
+
+    public void clear() {
+        for (int[] killers : this.killers) {
+            Arrays.fill(killers, -1);
+        }
+        for (int[] scores : this.history) {
+            Arrays.fill(scores, 0);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+public class MovePicker {
+
+    // Staged move generation for alpha-beta search. Moves are returned one
+    // at a time, in the order most likely to produce an early cutoff:
+    //
+    //   1. The hash move (best move stored in the transposition table)
+    //   2. Immediate wins (squares completing a line for the side to move)
+    //   3. Forced blocks (squares completing a line for the opponent)
+    //   4. Killer moves for this ply
+    //   5. Moves with a history score, highest score first
+    //   6. Everything else, in square order
+    //
+    // Later stages are only generated if the earlier ones did not cause a
+    // cutoff. Without ordering only the hash move is moved to the front.
+
+    private static final int HASH = 0;
+    private static final int WINS = 1;
+    private static final int BLOCKS = 2;
+    private static final int KILLERS = 3;
+    private static final int HISTORY = 4;
+    private static final int REST = 5;
+    private static final int DONE = 6;
+
+    private final MoveHistory history;  // null if ordering is disabled
+    private AbstractBoard board;
+    private int hashMove;
+    private int ply;
+
+    private int stage;
+    private long remaining;             // Squares not yet returned
+    private long pending;               // Squares left in the current stage
+    private int killer;                 // Next killer slot to try
+    private final int[] sorted = new int[Coordinate.NCubed];  // History moves, best first
+    private final int[] scores = new int[Coordinate.NCubed];
+    private int count;                  // Number of history moves
+    private int index;
+
+    public MovePicker(MoveHistory history) {
+        // Picker to be reused (see reset) so that the search allocates
+        // nothing per node
+        this.history = history;
+    }
+
+    public MovePicker(AbstractBoard board, int hashMove, int ply, MoveHistory history) {
+        this(history);
+        this.reset(board, hashMove, ply);
+    }
+
+    public MovePicker reset(AbstractBoard board, int hashMove, int ply) {
+        // Start over with the moves of the given board
+        this.board = board;
+        this.hashMove = hashMove;
+        this.ply = ply;
+        this.stage = HASH;
+        this.remaining = board.emptySquares();
+        this.pending = 0;
+        this.killer = 0;
+        this.count = 0;
+        this.index = 0;
+        return this;
+    }
+
+    public int next() {
+        // Returns the next move, or -1 if there are no moves left
+        while (true) {
+            if (this.pending != 0) {
+                return take(Long.numberOfTrailingZeros(this.pending));
+            }
+
+            switch (this.stage) {
+                case HASH:
+                    this.stage = this.history != null ? WINS : REST;
+                    if (this.hashMove >= 0 && Bit.isSet(this.remaining, this.hashMove)) {
+                        return take(this.hashMove);
+                    }
+                    break;
+
+                case WINS:
+                    this.pending = this.board.threats(this.board.turn()) & this.remaining;
+                    this.stage = BLOCKS;
+                    break;
+
+                case BLOCKS:
+                    this.pending = this.board.threats(this.board.turn().other()) & this.remaining;
+                    this.stage = KILLERS;
+                    break;
+
+                case KILLERS:
+                    if (this.killer < this.history.killers()) {
+                        int move = this.history.killer(this.ply, this.killer++);
+                        if (move >= 0 && Bit.isSet(this.remaining, move)) return take(move);
+                    } else {
+                        sortByHistory();
+                        this.stage = HISTORY;
+                    }
+                    break;
+
+                case HISTORY:
+                    while (this.index < this.count) {
+                        int move = this.sorted[this.index++];
+                        if (Bit.isSet(this.remaining, move)) return take(move);
+                    }
+                    this.stage = REST;
+                    break;
+
+                case REST:
+                    this.pending = this.remaining;
+                    this.stage = DONE;
+                    break;
+
+                default:
+                    return -1;
+            }
+        }
+    }
+
+    private int take(int move) {
+        this.remaining = Bit.clear(this.remaining, move);
+        this.pending = Bit.clear(this.pending, move);
+        return move;
+    }
+
+    private void sortByHistory() {
+        // Remaining moves with a non-zero history score, highest score first
+        // (insertion sort: there are at most 64 moves)
+        Player player = this.board.turn();
+        int[] moves = this.sorted;
+        int[] scores = this.scores;
+        int count = 0;
+
+        for (long squares = this.remaining; squares != 0; squares &= squares - 1) {
+            int move = Long.numberOfTrailingZeros(squares);
+            int score = this.history.history(player, move);
+            if (score == 0) continue;
+
+            int i = count++;
+            while (i > 0 && scores[i-1] < score) {
+                moves[i] = moves[i-1];
+                scores[i] = scores[i-1];
+                i--;
+            }
+            moves[i] = move;
+            scores[i] = score;
+        }
+        this.count = count;
+    }
+}
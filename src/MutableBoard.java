@@ -0,0 +1,98 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+public class MutableBoard extends AbstractBoard {
+
+    // Board for the search: moves are made and unmade in place, so searching
+    // a node allocates nothing. make() saves the line information on a stack
+    // of fixed size (there are at most 64 moves) and unmake() restores it.
+    // Moves must be unmade in the reverse order they were made.
+
+    private static final int WORDS = 8;    // Longs in the line sets
+
+    private final long[] savedHashes = new long[Coordinate.NCubed];
+    private final int[] savedTallies = new int[Coordinate.NCubed * 5];
+    private final long[] savedLineSets = new long[Coordinate.NCubed * WORDS];
+    private int moves = 0;                 // Moves made (and not unmade)
+
+    public MutableBoard() { // Starting board configuration
+        super();
+    }
+
+    public MutableBoard(AbstractBoard board) { // Copy of the given board
+        super(board);
+    }
+
+    public void make(int position) {
+        // Play the given move for the player to move
+        int i = this.moves++;
+        this.savedHashes[i] = this.hash;
+        this.savedTallies[i*5] = this.result;
+        this.savedTallies[i*5 + 1] = this.ones;
+        this.savedTallies[i*5 + 2] = this.twos;
+        this.savedTallies[i*5 + 3] = this.threes;
+        this.savedTallies[i*5 + 4] = this.center;
+        System.arraycopy(this.lineSets, 0, this.savedLineSets, i * WORDS, WORDS);
+
+        this.play(position);
+    }
+
+    public void unmake(int position) {
+        // Take back the given move, which must be the last one made
+        assert this.moves > 0 && !this.isEmpty(position);
+        int i = --this.moves;
+        this.turn = this.turn.other();
+        switch (this.turn) {
+            case X: this.x = Bit.clear(this.x, position); break;
+            case O: this.o = Bit.clear(this.o, position); break;
+        }
+
+        this.hash = this.savedHashes[i];
+        this.result = (byte) this.savedTallies[i*5];
+        this.ones = this.savedTallies[i*5 + 1];
+        this.twos = this.savedTallies[i*5 + 2];
+        this.threes = this.savedTallies[i*5 + 3];
+        this.center = this.savedTallies[i*5 + 4];
+        System.arraycopy(this.savedLineSets, i * WORDS, this.lineSets, 0, WORDS);
+    }
+
+    public static void main(String[] args) {
+        // Check make() and unmake() against Board.next: play random games on
+        // both, comparing the whole state after every move, then unmake all
+        // the moves, comparing with the saved boards on the way back
+        SplittableRandom random = new SplittableRandom(1);
+        long moves = 0;
+
+        for (int game = 0; game < 20000; game++) {
+            Board[] boards = new Board[Coordinate.NCubed + 1];
+            int[] played = new int[Coordinate.NCubed];
+            int count = 0;
+            boards[0] = new Board();
+            MutableBoard board = new MutableBoard(boards[0]);
+
+            while (!Evaluate.isOver(boards[count])) {
+                int move = boards[count].randomMove(random);
+                played[count] = move;
+                boards[count + 1] = boards[count].next(move);
+                board.make(move);
+                count++;
+                moves++;
+                check(board, boards[count]);
+            }
+            while (count > 0) {
+                board.unmake(played[--count]);
+                check(board, boards[count]);
+            }
+        }
+        System.out.println(moves + " moves made and unmade");
+    }
+
+    private static void check(MutableBoard board, Board expected) {
+        boolean same = board.x == expected.x && board.o == expected.o && board.turn == expected.turn
+                && board.hash == expected.hash && board.result == expected.result
+                && board.ones == expected.ones && board.twos == expected.twos
+                && board.threes == expected.threes && board.center == expected.center
+                && Arrays.equals(board.lineSets, expected.lineSets);
+        if (!same) throw new AssertionError("MutableBoard differs from " + expected);
+    }
+}
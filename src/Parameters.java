@@ -5,6 +5,33 @@ public class Parameters {
     }
 
     private int plies = 3;               // Number of plies to be searched
+    private int hash = 16;               // Transposition table size (megabytes)
+    private String hashFile = null;      // Persistent transposition table file
+    private int time = 0;                // Time limit per move (milliseconds, 0 = none)
+    private int threads = 0;             // Number of search threads (0 = default)
+    private boolean lazy = false;        // Lazy SMP instead of splitting the root moves
+    private int quiescence = 0;          // Plies of quiescence search (0 = none)
+    private boolean reductions = false;  // Late move reductions
+    private boolean futility = false;    // Futility pruning
+    private boolean solve = false;       // Solve the board with proof-number search
+    private String book = null;          // Opening book file
+    private int bookPlies = 4;           // Plies covered by a generated opening book
+    private String eval = "standard";    // Evaluation function (see Evaluator)
+    private int xPlies = -1;             // Settings for one side in self-play
+    private int oPlies = -1;             // (-1 or null = same as for both)
+    private int xTime = -1;
+    private int oTime = -1;
+    private String xEval = null;
+    private String oEval = null;
+    private int games = 100;             // Number of self-play games
+    private int randomPlies = 2;         // Random opening moves in each self-play game
+    private String output = null;        // Self-play game record file
+    private int port = 8080;             // HTTP game service port
+    private int clients = 100;           // Concurrent games in the load test
+    private String weights = null;       // Evaluation weights file
+    private String input = null;         // Game records for the tuner
+    private boolean noise = true;        // Evaluation noise in the opening
+    private long seed = System.nanoTime();  // Seed for the noise (random by default)
     private boolean first = false;       // Computer plays first
     private boolean alphaBeta = false;   // Use alpha-beta pruning
     private boolean ordering = false;    // Use move ordering
@@ -22,8 +49,31 @@ public class Parameters {
                 try {
                     switch (option) {
                         case "-plies" -> plies = Integer.parseInt(arg);
+                        case "-hash" -> hash = Integer.parseInt(arg);
+                        case "-hash-gb" -> hash = gigabytes(arg);
+                        case "-hash-file" -> hashFile = arg;
+                        case "-time" -> time = Integer.parseInt(arg);
+                        case "-threads" -> threads = Integer.parseInt(arg);
+                        case "-quiescence" -> quiescence = Integer.parseInt(arg);
+                        case "-book" -> book = arg;
+                        case "-book-plies" -> bookPlies = Integer.parseInt(arg);
+                        case "-eval" -> eval = evaluator(arg);
+                        case "-x-plies" -> xPlies = Integer.parseInt(arg);
+                        case "-o-plies" -> oPlies = Integer.parseInt(arg);
+                        case "-x-time" -> xTime = Integer.parseInt(arg);
+                        case "-o-time" -> oTime = Integer.parseInt(arg);
+                        case "-x-eval" -> xEval = evaluator(arg);
+                        case "-o-eval" -> oEval = evaluator(arg);
+                        case "-games" -> games = Integer.parseInt(arg);
+                        case "-random" -> randomPlies = Integer.parseInt(arg);
+                        case "-output" -> output = arg;
+                        case "-port" -> port = Integer.parseInt(arg);
+                        case "-clients" -> clients = Integer.parseInt(arg);
+                        case "-weights" -> weights = arg;
+                        case "-input" -> input = arg;
+                        case "-seed" -> seed = Long.parseLong(arg);
                     }
-                } catch (NumberFormatException e) {
+                } catch (IllegalArgumentException e) {
                     String message = String.format("Invalid value for %s: %s", option, arg);
                     System.err.println(message);
                     errors = true;
@@ -66,11 +116,55 @@ public class Parameters {
                     trace = true;
                     break;
 
+                case "-solve":
+                    solve = true;
+                    break;
+
+                case "-lazy":
+                case "-smp":
+                    lazy = true;
+                    break;
+
+                case "-lmr":
+                    reductions = true;
+                    break;
+
+                case "-futility":
+                    futility = true;
+                    break;
+
+                case "-no-noise":
+                    noise = false;
+                    break;
+
                 case "-verbose":
                     verbose = true;
                     break;
 
                 case "-plies":
+                case "-hash":
+                case "-hash-gb":
+                case "-hash-file":
+                case "-time":
+                case "-threads":
+                case "-quiescence":
+                case "-book":
+                case "-book-plies":
+                case "-eval":
+                case "-x-plies":
+                case "-o-plies":
+                case "-x-time":
+                case "-o-time":
+                case "-x-eval":
+                case "-o-eval":
+                case "-games":
+                case "-random":
+                case "-output":
+                case "-port":
+                case "-clients":
+                case "-weights":
+                case "-input":
+                case "-seed":
                     option = arg;
                     break;
 
@@ -96,8 +190,31 @@ public class Parameters {
         }
     }
 
+    private static int gigabytes(String size) {
+        // Size in megabytes
+        int gigabytes = Integer.parseInt(size);
+        if (gigabytes < 0 || gigabytes > Integer.MAX_VALUE / 1024) throw new IllegalArgumentException(size);
+        return gigabytes * 1024;
+    }
+
+    private static String evaluator(String name) {
+        Evaluator.valueOf(name);  // Throws IllegalArgumentException if unknown
+        return name;
+    }
+
 
     public int plies()         { return this.plies; }
+    public int hash()          { return this.hash; }
+    public String hashFile()   { return this.hashFile; }
+    public int time()          { return this.time; }
+    public int threads()       { return threads(1); }
+    public boolean lazy()      { return this.lazy; }
+    public int quiescence()    { return this.quiescence; }
+    public boolean reductions(){ return this.reductions; }
+    public boolean futility()  { return this.futility; }
+    public boolean solve()     { return this.solve; }
+    public String book()       { return this.book; }
+    public int bookPlies()     { return this.bookPlies; }
     public boolean first()     { return this.first; }
     public boolean alphaBeta() { return this.alphaBeta; }
     public boolean ordering()  { return this.ordering; }
@@ -106,11 +223,68 @@ public class Parameters {
     public boolean trace()     { return this.trace; }
     public boolean errors()    { return this.errors; }
     public String board()      { return this.board; }
+    public String eval()       { return this.eval; }
+    public int games()         { return this.games; }
+    public int randomPlies()   { return this.randomPlies; }
+    public String output()     { return this.output; }
+    public int port()          { return this.port; }
+    public int clients()       { return this.clients; }
+    public String weights()    { return this.weights; }
+    public String input()      { return this.input; }
+    public boolean noise()     { return this.noise; }
+    public long seed()         { return this.seed; }
+
+    public int threads(int defaultThreads) {
+        // -threads if given, for programs whose default is not one thread
+        return this.threads > 0 ? this.threads : defaultThreads;
+    }
+
+    // Settings for one side in self-play
+
+    public int plies(Player player) {
+        int plies = player == Player.X ? this.xPlies : this.oPlies;
+        return plies >= 0 ? plies : this.plies;
+    }
+
+    public int time(Player player) {
+        int time = player == Player.X ? this.xTime : this.oTime;
+        return time >= 0 ? time : this.time;
+    }
+
+    public String eval(Player player) {
+        String eval = player == Player.X ? this.xEval : this.oEval;
+        return eval != null ? eval : this.eval;
+    }
 
     public static void main(String[] args) {
         Parameters params = new Parameters(args);
 
         System.out.println("Plies = " + params.plies());
+        System.out.println("Hash = " + params.hash());
+        System.out.println("Hash file = " + params.hashFile());
+        System.out.println("Time = " + params.time());
+        System.out.println("Threads = " + params.threads());
+        System.out.println("Lazy = " + params.lazy());
+        System.out.println("Quiescence = " + params.quiescence());
+        System.out.println("Reductions = " + params.reductions());
+        System.out.println("Futility = " + params.futility());
+        System.out.println("Solve = " + params.solve());
+        System.out.println("Book = " + params.book());
+        System.out.println("Book plies = " + params.bookPlies());
+        System.out.println("Eval = " + params.eval());
+        for (Player player : Player.values()) {
+            System.out.println(player + ": plies = " + params.plies(player) + ", time = "
+                    + params.time(player) + ", eval = " + params.eval(player));
+        }
+        System.out.println("Games = " + params.games());
+        System.out.println("Random plies = " + params.randomPlies());
+        System.out.println("Output = " + params.output());
+        System.out.println("Port = " + params.port());
+        System.out.println("Clients = " + params.clients());
+        System.out.println("Weights = " + params.weights());
+        System.out.println("Input = " + params.input());
+        System.out.println("Noise = " + params.noise());
+        System.out.println("Seed = " + params.seed());
         System.out.println("First = " + params.first());
         System.out.println("Alpha = " + params.alphaBeta());
         System.out.println("Order = " + params.ordering());
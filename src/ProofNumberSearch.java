@@ -0,0 +1,377 @@
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+public class ProofNumberSearch {
+
+    // Depth-first proof-number search (df-pn) solver.
+    //
+    // Proves or disproves that one player (the attacker) can force a win.
+    // OR nodes are positions with the attacker to move, AND nodes those with
+    // the defender to move. Each node has a proof number (pn: how many more
+    // leaves must be proven to prove it) and a disproof number (dn); df-pn
+    // keeps expanding the most-proving child for as long as its numbers stay
+    // below thresholds passed down by its parent, and stores the numbers of
+    // every node it leaves in a fixed-size table (bounded memory: entries are
+    // overwritten and re-derived when needed).
+    //
+    // Moves are pruned where the outcome is forced: a player with a square
+    // completing a line wins; otherwise a player facing two such squares for
+    // the opponent loses, and a player facing one must block it.
+    //
+    // The game value is found with up to two proofs: can the side to move
+    // force a win? If not, can the opponent? If neither can, it is a draw.
+    //
+    // The positions are never repeated in a game (pieces are only added) so
+    // the search graph has no cycles.
+
+    public static final int INFINITY = 100_000_000;
+
+    // Thrown to unwind the search when the time limit runs out
+    private static class TimeoutException extends RuntimeException {
+        public TimeoutException() {
+            super("Solver time limit exceeded", null, false, false);
+        }
+    }
+
+    private static final int CHECK_INTERVAL = 4096;   // Nodes between clock checks
+    private static final int ENTRY_BYTES = 16;        // Key, pn and dn per slot
+    private static final int CANONICAL_PIECES = 8;    // Canonical keys up to this many pieces
+
+    private final long[] keys;
+    private final int[] pns;
+    private final int[] dns;
+    private final int mask;
+
+    private Player attacker;
+    private long deadline;
+    private long nodes;
+    private int winningMove = -1;
+    private int proofSize = 0;
+
+    public ProofNumberSearch(int megabytes) {
+        long bytes = Math.max(1, megabytes) * 1024L * 1024L;
+        int slots = Integer.highestOneBit((int) Math.min(bytes / ENTRY_BYTES, 1 << 30));
+        this.keys = new long[slots];
+        this.pns = new int[slots];
+        this.dns = new int[slots];
+        this.mask = slots - 1;
+    }
+
+    // Results of the last call to solve()
+
+    public long nodes() {
+        return this.nodes;
+    }
+
+    public int winningMove() {
+        // First move of the proof for the winner, if the side to move wins
+        return this.winningMove;
+    }
+
+    public int proofSize() {
+        // Number of distinct positions in the proof (or disproof) tree,
+        // -1 if it could not be counted within the time limit
+        return this.proofSize;
+    }
+
+    // Solver
+
+    public int solve(Board board, long timeLimit) {
+        // Returns the game value as a Result code, or Result.NONE if the
+        // time limit (milliseconds, 0 = none) ran out first.
+        this.deadline = timeLimit > 0 ? System.nanoTime() + timeLimit * 1_000_000L : Long.MAX_VALUE;
+        this.nodes = 0;
+        this.winningMove = -1;
+        this.proofSize = 0;
+
+        if (Evaluate.isOver(board)) return Evaluate.result(board);
+
+        Player toMove = board.turn();
+        try {
+            if (prove(board, toMove)) {
+                this.winningMove = provingMove(board);
+                this.proofSize = proofSize(board);
+                return Result.wins(toMove);
+            }
+            int disproof = proofSize(board);
+            if (prove(board, toMove.other())) {
+                this.proofSize = proofSize(board);
+                return Result.wins(toMove.other());
+            }
+            // Neither side can force a win: both disproofs are needed
+            this.proofSize = disproof < 0 ? -1 : disproof + proofSize(board);
+            return Result.TIE;
+        } catch (TimeoutException e) {
+            return Result.NONE;
+        }
+    }
+
+    private int proofSize(Board board) {
+        // Size of the tree just found for the current attacker, or -1 if
+        // the time limit ran out while counting it. Positions searched
+        // again while counting are not added to nodes().
+        long nodes = this.nodes;
+        try {
+            return proofTree(board, new HashSet<>());
+        } catch (TimeoutException e) {
+            return -1;
+        } finally {
+            this.nodes = nodes;
+        }
+    }
+
+    private boolean prove(Board board, Player attacker) {
+        this.attacker = attacker;
+        Arrays.fill(this.keys, 0);
+        mid(board, key(board), INFINITY, INFINITY);
+        return this.lastPn == 0;
+    }
+
+    // Multiple iterative deepening: expand the node until its proof number
+    // reaches thresholdPn or its disproof number reaches thresholdDn. The
+    // node's final numbers are stored in the table and in lastPn/lastDn
+    // (the table entry may be overwritten by the time the parent reads it),
+    // and the child it would search next in lastChild: once the node is
+    // solved, that is the child proving (or disproving) it.
+    // The caller passes the node's table key (see key()), which it has
+    // computed already to read the node's numbers.
+
+    private int lastPn;
+    private int lastDn;
+    private Board lastChild;
+
+    private void mid(Board board, long key, int thresholdPn, int thresholdDn) {
+        if (++this.nodes % CHECK_INTERVAL == 0 && System.nanoTime() >= this.deadline) {
+            throw new TimeoutException();
+        }
+
+        long moves = moves(board);
+        if (moves == 0) {
+            // Decided without search (see value())
+            this.lastPn = initialPn(board);
+            this.lastDn = initialDn(board);
+            this.lastChild = null;
+            store(key, this.lastPn, this.lastDn);
+            return;
+        }
+
+        boolean or = board.turn() == this.attacker;
+        int count = Long.bitCount(moves);
+        Board[] children = new Board[count];
+        long[] keys = new long[count];
+        int[] pns = new int[count];
+        int[] dns = new int[count];
+
+        Bit.BitIterator squares = new Bit.BitIterator(moves);
+        for (int i = 0; i < count; i++) {
+            children[i] = board.next(squares.next());
+            keys[i] = key(children[i]);
+            pns[i] = pn(children[i], keys[i]);
+            dns[i] = dn(children[i], keys[i]);
+        }
+
+        while (true) {
+            // Numbers from the children: at an OR node one proven child
+            // proves it and all children must be disproven; the other way
+            // around at an AND node.
+            int best = -1;
+            int min = INFINITY;      // Smallest pn (OR) or dn (AND)
+            int second = INFINITY;   // Second smallest
+            long sum = 0;            // Sum of the dns (OR) or pns (AND)
+
+            for (int i = 0; i < count; i++) {
+                int easy = or ? pns[i] : dns[i];
+                sum += or ? dns[i] : pns[i];
+                if (easy < min) {
+                    second = min;
+                    min = easy;
+                    best = i;
+                } else if (easy < second) {
+                    second = easy;
+                }
+            }
+            int pn = or ? min : clamp(sum);
+            int dn = or ? clamp(sum) : min;
+            store(key, pn, dn);
+
+            if (pn >= thresholdPn || dn >= thresholdDn || best < 0) {
+                this.lastPn = pn;
+                this.lastDn = dn;
+                this.lastChild = best >= 0 ? children[best] : null;
+                return;
+            }
+
+            if (or) {
+                int childPn = Math.min(thresholdPn, second + 1);
+                int childDn = clamp((long) thresholdDn - dn + dns[best]);
+                mid(children[best], keys[best], childPn, childDn);
+            } else {
+                int childPn = clamp((long) thresholdPn - pn + pns[best]);
+                int childDn = Math.min(thresholdDn, second + 1);
+                mid(children[best], keys[best], childPn, childDn);
+            }
+            pns[best] = this.lastPn;
+            dns[best] = this.lastDn;
+        }
+    }
+
+    private static int clamp(long value) {
+        return (int) Math.min(value, INFINITY);
+    }
+
+    // Move generation
+
+    private static long moves(Board board) {
+        // Moves worth searching; 0 if the position is already decided
+        if (Evaluate.isOver(board)) return 0;
+
+        Player player = board.turn();
+        if (board.threats(player) != 0) return 0;             // Wins next move
+
+        long blocks = board.threats(player.other());
+        if (Long.bitCount(blocks) >= 2) return 0;             // Cannot block both
+        if (blocks != 0) return blocks;                       // Must block
+
+        return board.emptySquares();
+    }
+
+    private int initialPn(Board board) {
+        // Proof number of a position not yet searched
+        int value = value(board);
+        if (value > 0) return 0;
+        if (value < 0) return INFINITY;
+        return board.turn() == this.attacker ? 1 : Long.bitCount(moves(board));
+    }
+
+    private int initialDn(Board board) {
+        // Disproof number of a position not yet searched
+        int value = value(board);
+        if (value > 0) return INFINITY;
+        if (value < 0) return 0;
+        return board.turn() == this.attacker ? Long.bitCount(moves(board)) : 1;
+    }
+
+    private int value(Board board) {
+        // +1 if the attacker has won (or wins by force next move), -1 if
+        // the attacker cannot win any more, 0 if unknown
+        int result = Evaluate.result(board);
+        if (result != Result.NONE) return result == Result.wins(this.attacker) ? 1 : -1;
+
+        Player player = board.turn();
+        int sign = player == this.attacker ? 1 : -1;
+        if (board.threats(player) != 0) return sign;
+        if (Long.bitCount(board.threats(player.other())) >= 2) return -sign;
+        return 0;
+    }
+
+    // Table of proof and disproof numbers. Positions with few pieces are
+    // keyed by their canonical form (see Symmetry), so symmetric positions
+    // share an entry; that is where symmetric transpositions are common.
+    // Further down the tree they are rare and canonicalizing every node
+    // would cost more than it saves, so the Zobrist hash is used instead.
+    // A canonical key costs a pass over the symmetries, so callers compute
+    // it once per position and pass it to pn(), dn() and store().
+
+    private int pn(Board board, long key) {
+        int index = (int) key & this.mask;
+        return this.keys[index] == key ? this.pns[index] : initialPn(board);
+    }
+
+    private int dn(Board board, long key) {
+        int index = (int) key & this.mask;
+        return this.keys[index] == key ? this.dns[index] : initialDn(board);
+    }
+
+    private void store(long key, int pn, int dn) {
+        int index = (int) key & this.mask;
+        this.keys[index] = key;
+        this.pns[index] = pn;
+        this.dns[index] = dn;
+    }
+
+    private static long key(Board board) {
+        // Never 0, so an empty slot never matches
+        long x = board.get(Player.X);
+        long o = board.get(Player.O);
+        if (Long.bitCount(x | o) <= CANONICAL_PIECES) {
+            return Symmetry.hash(x, o) | 1;
+        }
+        return board.hash() | 1;
+    }
+
+    // Proof tree
+
+    private boolean solved(Board board, long key) {
+        return pn(board, key) == 0 || dn(board, key) == 0;
+    }
+
+    private boolean proves(Board board, long key, boolean proof) {
+        // Is the position proven (or disproven, if proof is false)?
+        return proof ? pn(board, key) == 0 : dn(board, key) == 0;
+    }
+
+    private Board solvedChild(Board board, long key, long moves, boolean proof) {
+        // A child that proves (or disproves) the solved position. If none
+        // is in the table any more, the position is searched again, which
+        // stops as soon as it is solved and leaves that child in lastChild,
+        // rather than solving its children one after the other: most of
+        // them need not be solved at all, and may take much longer.
+        Bit.BitIterator squares = new Bit.BitIterator(moves);
+        while (squares.hasNext()) {
+            Board child = board.next(squares.next());
+            if (proves(child, key(child), proof)) return child;
+        }
+        mid(board, key, INFINITY, INFINITY);
+        return this.lastChild;
+    }
+
+    private int provingMove(Board board) {
+        // A move of the root (attacker to move) that is proven to win
+        long wins = board.threats(board.turn());
+        if (wins != 0) return Long.numberOfTrailingZeros(wins);
+
+        long nodes = this.nodes;  // Not part of the search, see proofSize()
+        Board child;
+        try {
+            child = solvedChild(board, key(board), moves(board), true);
+        } finally {
+            this.nodes = nodes;
+        }
+        return child == null ? -1 : Long.numberOfTrailingZeros(board.emptySquares() & ~child.emptySquares());
+    }
+
+    private int proofTree(Board board, Set<Long> visited) {
+        // Counts the positions of the proof tree (for a proven root) or the
+        // disproof tree (for a disproven one), re-solving any position whose
+        // table entry has been overwritten.
+        if (!visited.add(board.hash())) return 0;
+
+        long moves = moves(board);
+        if (moves == 0) return 1;
+
+        long key = key(board);
+        boolean proof;
+        if (solved(board, key)) {
+            proof = pn(board, key) == 0;
+        } else {
+            mid(board, key, INFINITY, INFINITY);
+            proof = this.lastPn == 0;
+        }
+        boolean or = board.turn() == this.attacker;
+
+        if (proof == or) {
+            // One child is enough: the proving (or disproving) one
+            Board child = solvedChild(board, key, moves, proof);
+            return 1 + (child == null ? 0 : proofTree(child, visited));
+        }
+
+        // Every child has to be proven (or disproven)
+        int size = 1;
+        Bit.BitIterator squares = new Bit.BitIterator(moves);
+        while (squares.hasNext()) {
+            size += proofTree(board.next(squares.next()), visited);
+        }
+        return size;
+    }
+}
@@ -0,0 +1,209 @@
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+
+public class Protocol {
+
+    // Line-oriented engine protocol on standard input and output, in the
+    // style of UCI, for GUIs and game servers:
+    //
+    //     uci                                    id name ... / uciok
+    //     isready                                readyok
+    //     ucinewgame                             (clears the hash table, unless in a file)
+    //     position startpos [moves <m> ...]
+    //     position <board> [moves <m> ...]
+    //     go [depth <n>] [movetime <ms>] [nodes <n>] [infinite]
+    //     stop
+    //     quit
+    //
+    // The board is in Board.valueOf format and may contain spaces. Moves are
+    // in compact notation (see Coordinate). go starts the search in the
+    // background; without limits it runs to full depth or until stop. After
+    // each iteration the engine prints
+    //
+    //     info depth <d> score <s> nodes <n> nps <n> time <ms> pv <m> ...
+    //
+    // with the score for the side to move, and at the end
+    //
+    //     bestmove <m>       (bestmove none if the game is over)
+    //
+    // Errors are reported as "info string <message>". The search settings
+    // come from the command line:
+    //
+    //     java Protocol -hash 64 -threads 8 ordering
+    //
+    // With -hash-file the table is kept in a memory-mapped file, reopened
+    // by the next run, so long analyses pick up where they left off. It is
+    // reopened with the same -hash, and cleared if the evaluation or the
+    // search options differ (give the same -seed, or -no-noise, to keep it):
+    //
+    //     java Protocol -hash-gb 4 -hash-file analysis.tt -seed 1 ordering
+
+    private final Search search;
+    private Board board = new Board();
+    private Thread thread;             // Running search (null = none)
+
+    public Protocol(Search search) {
+        this.search = search;
+        search.listener(this::info);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Parameters params = new Parameters(args);
+        if (params.errors()) System.exit(1);
+        Evaluate.setUp(params);
+
+        TranspositionTable table = TranspositionTable.of(params);
+        Search search = new Search(table, Search.MAX_DEPTH, 0)
+                .ordering(params.ordering()).threads(params.threads()).lazy(params.lazy())
+                .quiescence(params.quiescence())
+                .reductions(params.reductions()).futility(params.futility())
+                .evaluator(Evaluator.valueOf(params.eval()));
+        new Protocol(search).run(new BufferedReader(new InputStreamReader(System.in)));
+        search.threads(1);  // Shut down the pool
+    }
+
+    public void run(BufferedReader input) throws Exception {
+        String line;
+        while ((line = input.readLine()) != null) {
+            String[] words = line.trim().split("\\s+");
+            switch (words[0]) {
+                case "":
+                    break;
+
+                case "uci":
+                    send("id name 3D Tic Tac Toe");
+                    send("uciok");
+                    break;
+
+                case "isready":
+                    send("readyok");
+                    break;
+
+                case "ucinewgame":
+                    stop();
+                    if (!this.search.table().persistent()) this.search.table().clear();
+                    this.board = new Board();
+                    break;
+
+                case "position":
+                    stop();
+                    position(words);
+                    break;
+
+                case "go":
+                    stop();
+                    go(words);
+                    break;
+
+                case "stop":
+                    stop();
+                    break;
+
+                case "quit":
+                    stop();
+                    return;
+
+                default:
+                    send("info string Unknown command: " + words[0]);
+            }
+        }
+        stop();
+    }
+
+    private void position(String[] words) {
+        // position startpos|<board> [moves <m> ...]
+        int i = 1;
+        String position = "";
+        while (i < words.length && !words[i].equals("moves")) {
+            position += words[i++];
+        }
+
+        Board board;
+        try {
+            board = position.equals("startpos") ? new Board() : Board.valueOf(position);
+        } catch (IllegalArgumentException e) {
+            send("info string " + e.getMessage());
+            return;
+        }
+        if (board.turn() == Player.EMPTY) {
+            send("info string Invalid position: " + position);
+            return;
+        }
+
+        for (i++; i < words.length; i++) {
+            int move = Coordinate.valueOf(words[i]);
+            if (move < 0 || !board.isEmpty(move) || Evaluate.isOver(board)) {
+                send("info string Illegal move: " + words[i]);
+                return;
+            }
+            board = board.next(move);
+        }
+        this.board = board;
+    }
+
+    private void go(String[] words) {
+        // go [depth <n>] [movetime <ms>] [nodes <n>] [infinite]
+        int depth = Search.MAX_DEPTH;
+        long time = 0;
+        long nodes = 0;
+        try {
+            for (int i = 1; i < words.length; i++) {
+                switch (words[i]) {
+                    case "depth" -> depth = Integer.parseInt(words[++i]);
+                    case "movetime" -> time = Long.parseLong(words[++i]);
+                    case "nodes" -> nodes = Long.parseLong(words[++i]);
+                    case "infinite" -> { }
+                    default -> throw new IllegalArgumentException("Unknown go option: " + words[i]);
+                }
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            send("info string Invalid go command: " + String.join(" ", words));
+            return;
+        }
+
+        Board board = this.board;
+        if (Evaluate.isOver(board)) {
+            send("bestmove none");
+            return;
+        }
+
+        this.search.maxDepth(Math.max(1, depth)).timeLimit(time).nodeLimit(nodes);
+        this.thread = new Thread(() -> {
+            int move = this.search.bestMove(board);
+            send("bestmove " + Coordinate.toCompactString(move));
+        }, "search");
+        this.thread.start();
+    }
+
+    private void stop() throws InterruptedException {
+        // Stop the running search, if any, and wait for its bestmove. A stop
+        // that arrives before the search has started is lost, so keep asking.
+        if (this.thread == null) return;
+        while (this.thread.isAlive()) {
+            this.search.stop();
+            this.thread.join(10);
+        }
+        this.thread = null;
+    }
+
+    private void info(int depth, int score, long nodes, long nanos, int[] pv) {
+        // Called by the search thread after each iteration
+        StringBuilder line = new StringBuilder();
+        long ms = nanos / 1_000_000;
+        line.append("info depth ").append(depth)
+            .append(" score ").append(this.board.turn() == Player.X ? score : -score)
+            .append(" nodes ").append(nodes)
+            .append(" nps ").append(nanos > 0 ? nodes * 1_000_000_000L / nanos : 0)
+            .append(" time ").append(ms)
+            .append(" pv");
+        for (int move : pv) {
+            line.append(' ').append(Coordinate.toCompactString(move));
+        }
+        send(line.toString());
+    }
+
+    private static synchronized void send(String line) {
+        System.out.println(line);
+        System.out.flush();
+    }
+}
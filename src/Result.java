@@ -0,0 +1,24 @@
+public class Result {
+
+    // Game result codes. Computed once per board (see Board.result()) and
+    // compared as ints in the search; text is only built for display.
+
+    public static final int NONE = 0;     // Game not over
+    public static final int X_WINS = 1;
+    public static final int O_WINS = 2;
+    public static final int TIE = 3;
+
+    public static int wins(Player player) {
+        return player == Player.X ? X_WINS : O_WINS;
+    }
+
+    public static String toString(int result) {
+        // Display text for the result (null if the game is not over)
+        switch (result) {
+            case X_WINS: return "X Wins";
+            case O_WINS: return "O Wins";
+            case TIE:    return "Tie";
+            default:     return null;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+public class ScalarLineScan implements LineScan {
+
+    // One line at a time: two bit counts and a branch per line
+
+    @Override
+    public long scan(long x, long o) {
+        int ones = 0;
+        int twos = 0;
+        int threes = 0;
+
+        for (Line line : Line.lines) {
+            long mask = line.positions();
+            int xCount = Long.bitCount(x & mask);
+            int oCount = Long.bitCount(o & mask);
+
+            int count;
+            int sign;
+            if (oCount == 0) {
+                count = xCount;
+                sign = 1;
+            } else if (xCount == 0) {
+                count = oCount;
+                sign = -1;
+            } else {
+                continue;  // Blocked
+            }
+
+            switch (count) {
+                case 1: ones += sign; break;
+                case 2: twos += sign; break;
+                case 3: threes += sign; break;
+            }
+        }
+        return LineScan.pack(ones, twos, threes);
+    }
+}
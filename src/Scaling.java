@@ -0,0 +1,62 @@
+public class Scaling {
+
+    // Scaling report for the parallel search: searches a fixed set of
+    // positions to a fixed depth with 1, 2, ..., N threads, once splitting
+    // the root moves and once with Lazy SMP, and prints the time to reach
+    // the depth, the nodes searched and the nodes per second.
+    //
+    //     java Scaling -plies 5 -threads 16 ordering [board]
+    //
+    // Each run starts with an empty transposition table. One untimed run
+    // warms up the JIT compiler first.
+
+    private static final String[] positions = {
+        "................................................................",
+        "....|.x..|.o..|....  ....|.xo.|.ox.|....  ....|....|.x..|....  ....|....|....|..o.",
+        "x...|....|....|...o  ....|.xx.|.o..|....  ....|.o..|.x..|....  o...|....|....|...x",
+        "xo..|.x..|..o.|...x  ....|.xo.|.ox.|o...  ..x.|.o..|.x..|....  o...|....|.x..|o..x",
+    };
+
+    public static void main(String[] args) throws Exception {
+        Parameters params = new Parameters(args);
+        if (params.weights() != null) Evaluate.loadWeights(params.weights());
+        Evaluate.setNoise(params.noise(), params.seed());
+        int depth = params.plies();
+        int maxThreads = Math.max(1, params.threads());
+        String[] boards = params.board().isEmpty() ? positions : new String[] { params.board() };
+
+        System.out.printf("Depth %d, %d position(s), up to %d threads (%d processors)\n",
+                depth, boards.length, maxThreads, Runtime.getRuntime().availableProcessors());
+
+        run(boards, depth, 1, false, params);
+
+        for (boolean lazy : new boolean[] { false, true }) {
+            System.out.println();
+            System.out.println(lazy ? "Lazy SMP" : "Root split");
+            System.out.printf("%8s %12s %14s %12s %8s\n", "Threads", "Time (ms)", "Nodes", "Nodes/sec", "Speedup");
+
+            double baseline = 0;
+            for (int threads = 1; threads <= maxThreads; threads++) {
+                long start = System.nanoTime();
+                long nodes = run(boards, depth, threads, lazy, params);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                if (threads == 1) baseline = seconds;
+                System.out.printf("%8d %12.0f %14d %12.0f %8.2f\n", threads, seconds * 1000,
+                        nodes, nodes / seconds, baseline / seconds);
+            }
+        }
+    }
+
+    private static long run(String[] boards, int depth, int threads, boolean lazy, Parameters params) {
+        // Search each position; returns the total number of nodes
+        long nodes = 0;
+        for (String position : boards) {
+            Search search = new Search(new TranspositionTable(params.hash()), depth, 0)
+                    .ordering(params.ordering()).threads(threads).lazy(lazy);
+            search.bestMove(Board.valueOf(position));
+            nodes += search.nodes();
+            search.threads(1);  // Shut down the pool
+        }
+        return nodes;
+    }
+}
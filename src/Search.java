@@ -0,0 +1,752 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+public class Search {
+
+    // Iterative-deepening alpha-beta search.
+    //
+    // Searches to depth 1, 2, 3, ... until the depth limit is reached or the
+    // time limit runs out, and returns the best move of the deepest search
+    // that completed. Each iteration searches the best move of the previous
+    // one first. Results are shared between iterations (and between moves)
+    // through the transposition table.
+    //
+    // Each iteration starts with an aspiration window around the score of
+    // the iteration two plies shallower, and is searched again with the
+    // full window if the score falls outside it. Two plies back the same
+    // side makes the last move, so the scores are close; from one ply to
+    // the next they swing towards the side that moved last. Within the tree the search is a principal
+    // variation search: after the first move of a node, moves are searched
+    // with a null window and only searched again if they beat the best one.
+    //
+    // Two selective techniques can be switched on. Late move reductions
+    // search quiet moves (moves that neither complete, block nor make a 3
+    // in a row) late in the move order one ply shallower, and again to the
+    // full depth if they turn out to beat the best move. Futility pruning
+    // skips the quiet moves of a node one ply above the depth limit whose
+    // static evaluation is too far below alpha (above beta for O) for one
+    // quiet move to make up the difference.
+    //
+    // With more than one thread the root moves are searched in parallel on a
+    // fork-join pool, after the first one has been searched on its own. All
+    // threads share the transposition table, the move ordering heuristics and
+    // the best score found so far at the root, which narrows the window for
+    // the remaining root moves. Ties between root moves are broken by a fixed
+    // rank (previous best move first, then square order) rather than by the
+    // order in which threads finish, so the chosen move does not depend on
+    // the number of threads.
+    //
+    // In Lazy SMP mode the main thread searches the root moves one after
+    // another while helper threads search the same position independently,
+    // half of them one ply deeper and each starting from a different root
+    // move. The helpers' results are thrown away; they only fill the shared
+    // transposition table with entries the main thread then hits. Helpers
+    // are stopped as soon as the main thread finishes the iteration.
+    //
+    // With quiescence search on, a position at the depth limit with a 3 in a
+    // row open for either side is not evaluated right away: the search goes
+    // on with forcing moves only (completing a line, blocking the opponent's
+    // 3 in a row, or making two 3 in a rows at once) for up to the given
+    // number of plies. The side to move may stand pat on the static
+    // evaluation unless it has to block.
+
+    public static final int MAX_DEPTH = Coordinate.NCubed;
+
+    public interface Listener {
+        // Called by the searching thread after each completed iteration, with
+        // the score of the best move (positive favors X) and the principal
+        // variation, best move first
+        void iteration(int depth, int score, long nodes, long nanos, int[] pv);
+    }
+
+    // Thrown to unwind the search when the time limit runs out
+    private static class TimeoutException extends RuntimeException {
+        public TimeoutException() {
+            super("Search time limit exceeded", null, false, false);
+        }
+    }
+
+    private static final int CHECK_INTERVAL = 1024;   // Nodes between clock checks
+    private static final int ASPIRATION = 250;        // Half-width of the aspiration window
+    private static final int LMR_DEPTH = 3;           // Least depth for late move reductions
+    private static final int LMR_MOVES = 4;           // Moves searched in full before reducing
+    private static final int FUTILITY_MARGIN = 60000; // Most a quiet move can gain (a forced win pattern)
+
+    private final TranspositionTable table;
+    private int maxDepth;           // Depth limit (plies)
+    private long timeLimit;         // Time limit per move (milliseconds, 0 = none)
+    private long nodeLimit = 0;     // Node limit per move (0 = none)
+    private Listener listener;      // Notified of each iteration (null = none)
+    private boolean trace = false;
+    private boolean verbose = false;
+    private MoveHistory history;    // Move ordering heuristics (null = no ordering)
+    private ForkJoinPool pool;      // Threads for the root moves (null = single-threaded)
+    private int threads = 1;        // Number of search threads
+    private boolean lazy = false;   // Lazy SMP instead of splitting the root moves
+    private int quiescence = 0;     // Plies of quiescence search (0 = none)
+    private boolean reductions = false;  // Late move reductions
+    private boolean futility = false;    // Futility pruning
+    private Evaluator evaluator = Evaluate::evaluate;
+    private int winScore = winScore(this.evaluator);  // No aspiration window at or beyond
+
+    private long deadline;          // System.nanoTime() at which the search stops
+    private volatile boolean abortable;  // Can the current iteration be aborted?
+    private volatile boolean stopped;    // Has the current iteration been aborted?
+    private volatile boolean stopRequested;   // Has stop() been called?
+    private volatile boolean helpersStopped;  // Has the main thread finished the iteration?
+    private final Statistics statistics = new Statistics();  // For the current move
+    private int depthReached;       // Depth of the last completed iteration
+    private int score;              // Score of the best move of that iteration
+    private final int[] scores = new int[MAX_DEPTH + 1];  // Best score of each iteration
+
+    public Search(TranspositionTable table, int maxDepth, long timeLimit) {
+        this.table = table;
+        this.maxDepth = maxDepth;
+        this.timeLimit = timeLimit;
+    }
+
+    // Settings
+
+    public Search trace(boolean trace) {
+        this.trace = trace;
+        return this;
+    }
+
+    public Search verbose(boolean verbose) {
+        this.verbose = verbose;
+        return this;
+    }
+
+    public Search ordering(boolean ordering) {
+        this.history = ordering ? new MoveHistory() : null;
+        return this;
+    }
+
+    public Search threads(int threads) {
+        if (this.pool != null) this.pool.shutdown();
+        this.pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        this.threads = Math.max(1, threads);
+        return this;
+    }
+
+    public Search lazy(boolean lazy) {
+        this.lazy = lazy;
+        return this;
+    }
+
+    public Search quiescence(int plies) {
+        this.quiescence = plies;
+        return this;
+    }
+
+    public Search reductions(boolean reductions) {
+        this.reductions = reductions;
+        return this;
+    }
+
+    public Search futility(boolean futility) {
+        this.futility = futility;
+        return this;
+    }
+
+    public Search maxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+        return this;
+    }
+
+    public Search timeLimit(long timeLimit) {
+        this.timeLimit = timeLimit;
+        return this;
+    }
+
+    public Search nodeLimit(long nodeLimit) {
+        this.nodeLimit = nodeLimit;
+        return this;
+    }
+
+    public Search listener(Listener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    public Search evaluator(Evaluator evaluator) {
+        this.evaluator = evaluator;
+        this.winScore = winScore(evaluator);
+        return this;
+    }
+
+    private static int winScore(Evaluator evaluator) {
+        // The evaluator's score for a won game (X completes a line, O has
+        // three pieces elsewhere): a root score this large is a proven win
+        // or loss, and each evaluator has its own scale
+        long line = Line.lines[0].positions();
+        long others = ~line;
+        Board board = new Board();
+        for (int i = 0; i < 4; i++) {
+            board = board.next(Long.numberOfTrailingZeros(line));
+            line &= line - 1;
+            if (i < 3) {
+                board = board.next(Long.numberOfTrailingZeros(others));
+                others &= others - 1;
+            }
+        }
+        return Math.abs(evaluator.evaluate(board));
+    }
+
+    public TranspositionTable table() {
+        return this.table;
+    }
+
+    public int depthReached() {
+        return this.depthReached;
+    }
+
+    public int score() {
+        // Score of the best move found by the last search (positive favors X)
+        return this.score;
+    }
+
+    public long nodes() {
+        // Nodes searched for the last move, by all threads
+        return this.statistics.nodes();
+    }
+
+    public Statistics statistics() {
+        // Statistics for the last move
+        return this.statistics;
+    }
+
+    public void stop() {
+        // Called from another thread: the search returns the best move of the
+        // last completed iteration as soon as possible. The first iteration
+        // always completes. A search that has not started yet is not stopped.
+        this.stopRequested = true;
+    }
+
+    // Iterative deepening driver
+
+    public int bestMove(Board board) {
+        long start = System.nanoTime();
+        this.deadline = this.timeLimit > 0 ? start + this.timeLimit * 1_000_000L : Long.MAX_VALUE;
+        this.statistics.start(this.table);
+        this.stopRequested = false;
+        this.depthReached = 0;
+        if (this.history != null) this.history.age();
+
+        int limit = Math.min(this.maxDepth, board.numberEmptySquares());
+        int bestMove = -1;
+
+        for (int depth = 1; depth <= limit; depth++) {
+            // The first iteration always completes, so there is always a move
+            this.abortable = depth > 1;
+            this.stopped = false;
+            try {
+                bestMove = minimaxRoot(board, depth, bestMove);
+            } catch (TimeoutException e) {
+                break;
+            }
+            this.depthReached = depth;
+            this.statistics.iteration(depth);
+
+            if (this.listener != null) {
+                this.listener.iteration(depth, this.score, this.statistics.nodes(),
+                        System.nanoTime() - start, principalVariation(board, bestMove, depth));
+            }
+
+            if (this.verbose) {
+                System.out.printf("Depth %d: %s (%d nodes, %d ms)\n", depth,
+                        Coordinate.toString(bestMove), this.statistics.nodes(),
+                        (System.nanoTime() - start) / 1_000_000);
+            }
+            if (System.nanoTime() >= this.deadline || this.stopRequested) break;
+            if (this.nodeLimit > 0 && this.statistics.nodes() >= this.nodeLimit) break;
+        }
+        this.statistics.finish(this.table);
+        return bestMove;
+    }
+
+    // Mini Max
+    private int minimaxRoot(Board board, int depth, int firstMove) {
+        // Search with an aspiration window around the score two iterations
+        // back (the same side moves last; see the class comment), and again
+        // with the full window if the score falls outside it
+        int[] moves = rootMoves(board, firstMove);
+        RootResult root;
+        int guess = this.scores[Math.max(0, depth - 2)];
+        if (depth > 2 && Math.abs(guess) < this.winScore) {
+            root = searchRoot(board, moves, depth, firstMove, guess - ASPIRATION, guess + ASPIRATION);
+            if (!this.stopped && root.failed()) {
+                root = searchRoot(board, moves, depth, firstMove, Integer.MIN_VALUE, Integer.MAX_VALUE);
+            }
+        } else {
+            root = searchRoot(board, moves, depth, firstMove, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        }
+
+        if (this.stopped) throw new TimeoutException();
+        this.score = root.score;
+        this.scores[depth] = root.score;
+        return root.move;
+    }
+
+    private RootResult searchRoot(Board board, int[] moves, int depth, int firstMove, int lower, int upper) {
+        RootResult root = new RootResult(board.turn() == Player.X, lower, upper);
+        ForkJoinTask<?>[] helpers = startHelpers(board, moves, depth);
+
+        try {
+            // The first move is searched on its own to get a bound for the rest
+            searchRootMove(board, moves[0], rank(moves[0], firstMove), depth, root);
+
+            if (this.pool == null || this.lazy) {
+                for (int i = 1; i < moves.length; i++) {
+                    searchRootMove(board, moves[i], rank(moves[i], firstMove), depth, root);
+                }
+            } else {
+                ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[moves.length - 1];
+                for (int i = 1; i < moves.length; i++) {
+                    int move = moves[i];
+                    int rank = rank(move, firstMove);
+                    tasks[i-1] = ForkJoinTask.adapt(() -> {
+                        try {
+                            searchRootMove(board, move, rank, depth, root);
+                        } catch (TimeoutException e) {
+                            // this.stopped is set; the iteration is discarded
+                        }
+                    });
+                }
+                this.pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+            }
+        } finally {
+            stopHelpers(helpers);
+        }
+        return root;
+    }
+
+    private void searchRootMove(Board board, int move, int rank, int depth, RootResult root) {
+        Worker worker = new Worker(board, false);
+        try {
+            searchRootMove(worker, board, move, rank, depth, root);
+        } finally {
+            worker.flush();
+        }
+    }
+
+    private void searchRootMove(Worker worker, Board board, int move, int rank, int depth, RootResult root) {
+        boolean maximizing = root.maximizing;
+        boolean first = !root.found();
+        int alpha = maximizing ? root.bound(rank) : root.lower;
+        int beta = maximizing ? root.upper : root.bound(rank);
+        if (alpha >= beta) return;  // Another move has failed high
+
+        worker.board.make(move);
+        int score = worker.search(first, maximizing, depth - 1, 1, alpha, beta);
+        worker.board.unmake(move);
+
+        boolean exact = maximizing ? score > alpha : score < beta;
+        if (exact) root.update(move, rank, score);
+
+        if (trace && !worker.helper) {
+            int x = Coordinate.getX(move);
+            int y = Coordinate.getY(move);
+            int z = Coordinate.getZ(move);
+            String relation = exact ? " = " : (maximizing ? " <= " : " >= ");
+            System.out.println("Move " + Coordinate.toString(x, y, z)
+                    + " → score" + relation + score);
+        }
+    }
+
+    // Lazy SMP helpers
+
+    private ForkJoinTask<?>[] startHelpers(Board board, int[] moves, int depth) {
+        if (this.pool == null || !this.lazy) return new ForkJoinTask<?>[0];
+
+        this.helpersStopped = false;
+        int limit = board.numberEmptySquares();
+        ForkJoinTask<?>[] helpers = new ForkJoinTask<?>[this.threads - 1];
+        for (int i = 0; i < helpers.length; i++) {
+            int helper = i + 1;
+            int helperDepth = Math.min(depth + helper % 2, limit);
+            helpers[i] = this.pool.submit(() -> helperSearch(board, moves, helperDepth, helper));
+        }
+        return helpers;
+    }
+
+    private void stopHelpers(ForkJoinTask<?>[] helpers) {
+        this.helpersStopped = true;
+        for (ForkJoinTask<?> helper : helpers) {
+            helper.quietlyJoin();
+        }
+    }
+
+    private void helperSearch(Board board, int[] moves, int depth, int offset) {
+        // Search all root moves, starting at a different one for each helper
+        Worker worker = new Worker(board, true);
+        RootResult root = new RootResult(board.turn() == Player.X, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        try {
+            for (int i = 0; i < moves.length; i++) {
+                int move = moves[(i + offset) % moves.length];
+                searchRootMove(worker, board, move, rank(move, moves[0]), depth, root);
+            }
+        } catch (TimeoutException e) {
+            // Stopped by the main thread (or out of time)
+        } finally {
+            worker.flush();
+        }
+    }
+
+    private static int rank(int move, int firstMove) {
+        // Tie-breaking order for root moves (lowest rank wins)
+        return move == firstMove ? 0 : move + 1;
+    }
+
+    private static final class RootResult {
+
+        // Best root move found so far, shared by all threads
+
+        private final boolean maximizing;
+        private final int lower;    // Window: scores outside it are bounds only
+        private final int upper;
+        private int move = -1;
+        private int rank;
+        private int score;
+
+        RootResult(boolean maximizing, int lower, int upper) {
+            this.maximizing = maximizing;
+            this.lower = lower;
+            this.upper = upper;
+        }
+
+        synchronized boolean found() {
+            return this.move >= 0;
+        }
+
+        synchronized boolean failed() {
+            // Is the best score outside the window?
+            if (this.move < 0) return true;
+            return this.maximizing ? this.score >= this.upper : this.score <= this.lower;
+        }
+
+        synchronized int bound(int rank) {
+            // Alpha (or beta) for a root move: it must beat the best score so
+            // far, or equal it if it ranks ahead of the current best move.
+            if (this.move < 0) return this.maximizing ? this.lower : this.upper;
+            if (rank < this.rank) return this.maximizing ? this.score - 1 : this.score + 1;
+            return this.score;
+        }
+
+        synchronized void update(int move, int rank, int score) {
+            boolean better = this.maximizing ? score > this.score : score < this.score;
+            if (this.move < 0 || better || (score == this.score && rank < this.rank)) {
+                this.move = move;
+                this.rank = rank;
+                this.score = score;
+            }
+        }
+    }
+
+    private int[] rootMoves(Board board, int firstMove) {
+        // Best move from the previous iteration first, then the rest
+        int[] moves = new int[board.numberEmptySquares()];
+        int count = 0;
+
+        MovePicker picker = new MovePicker(board, firstMove, 0, this.history);
+        for (int move = picker.next(); move >= 0; move = picker.next()) {
+            moves[count++] = move;
+        }
+        return moves;
+    }
+
+    private int[] principalVariation(Board board, int move, int depth) {
+        // Best move followed by the best replies stored in the table
+        int[] pv = new int[depth];
+        int length = 0;
+        while (move >= 0 && length < depth && board.isEmpty(move) && !Evaluate.isOver(board)) {
+            pv[length++] = move;
+            board = board.next(move);
+            long entry = this.table.probe(board.hash());
+            move = entry != 0 ? TranspositionTable.move(entry) : -1;
+        }
+        return Arrays.copyOf(pv, length);
+    }
+
+    private void checkTime() {
+        // Also checks for stop() and the node limit
+        if (this.stopped || (this.abortable && (System.nanoTime() >= this.deadline || this.stopRequested
+                || (this.nodeLimit > 0 && this.statistics.nodes() >= this.nodeLimit)))) {
+            this.stopped = true;
+            throw new TimeoutException();
+        }
+    }
+
+    private final class Worker {
+
+        // Search state private to one thread. Moves are made and unmade on
+        // the worker's own board and each ply reuses its move picker, so
+        // the search allocates nothing per node. A worker is thrown away
+        // when a search times out, since the board is left mid-search.
+
+        private final boolean helper;   // Lazy SMP helper thread?
+        private final MutableBoard board;
+        private final MovePicker[] pickers = new MovePicker[MAX_DEPTH + 1];
+        private long nodes = 0;         // Statistics not yet added to the totals
+        private long leaves = 0;
+        private long cutoffs = 0;
+        private long firstCutoffs = 0;
+
+        Worker(Board root, boolean helper) {
+            this.helper = helper;
+            this.board = new MutableBoard(root);
+            for (int ply = 0; ply < this.pickers.length; ply++) {
+                this.pickers[ply] = new MovePicker(history);
+            }
+        }
+
+        void flush() {
+            statistics.add(this.nodes, this.leaves, this.cutoffs, this.firstCutoffs);
+            this.nodes = this.leaves = this.cutoffs = this.firstCutoffs = 0;
+        }
+
+        private void visit() {
+            if (++this.nodes % CHECK_INTERVAL == 0) {
+                flush();  // Keep the node count for the node limit up to date
+                if (this.helper && helpersStopped) throw new TimeoutException();
+                checkTime();
+            }
+        }
+
+        // Minimax with Alpha-Beta and a transposition table
+        int minimax(int depth, int ply, int alpha, int beta) {
+            MutableBoard board = this.board;
+            visit();
+
+            if (Evaluate.isOver(board)) {
+                this.leaves++;
+                return evaluator.evaluate(board);
+            }
+            if (depth == 0) {
+                if (quiescence > 0 && (board.nextLine(Player.X, 3, 0) >= 0 || board.nextLine(Player.O, 3, 0) >= 0)) {
+                    return quiesce(quiescence, alpha, beta);
+                }
+                this.leaves++;
+                return evaluator.evaluate(board);
+            }
+
+            // Transposition table lookup: reuse a result from a search at least
+            // as deep, or at least search its best move first.
+            int alphaOriginal = alpha;
+            int betaOriginal = beta;
+            int hashMove = -1;
+            long entry = table.probe(board.hash());
+
+            if (entry != 0) {
+                hashMove = TranspositionTable.move(entry);
+                if (TranspositionTable.depth(entry) >= depth) {
+                    int score = TranspositionTable.score(entry);
+                    switch (TranspositionTable.bound(entry)) {
+                        case TranspositionTable.EXACT: return score;
+                        case TranspositionTable.LOWER: alpha = Math.max(alpha, score); break;
+                        case TranspositionTable.UPPER: beta = Math.min(beta, score); break;
+                    }
+                    if (beta <= alpha) return score;
+                }
+            }
+
+            boolean maximizing = (board.turn() == Player.X);
+            int value = maximizing ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+            int bestMove = -1;
+            boolean first = true;
+            int count = 0;          // Moves searched
+
+            // Quiet moves may be reduced or pruned
+            long forcing = 0;
+            boolean futile = false;
+            if ((reductions && depth >= LMR_DEPTH) || (futility && depth == 1)) {
+                Player player = board.turn();
+                forcing = board.threats(player) | board.threats(player.other()) | board.makesThrees(player);
+            }
+            if (futility && depth == 1) {
+                this.leaves++;
+                int margin = maximizing ? FUTILITY_MARGIN : -FUTILITY_MARGIN;
+                int estimate = evaluator.evaluate(board) + margin;
+                futile = maximizing ? estimate <= alpha : estimate >= beta;
+                if (futile) value = estimate;
+            }
+
+            MovePicker picker = this.pickers[ply].reset(board, hashMove, ply);
+            for (int move = picker.next(); move >= 0; move = picker.next()) {
+                boolean quiet = !Bit.isSet(forcing, move);
+                if (futile && quiet) continue;
+                count++;
+
+                board.make(move);
+                int score;
+                if (reductions && depth >= LMR_DEPTH && count > LMR_MOVES && quiet) {
+                    // Reduced null-window search, then in full if it beats the best
+                    score = maximizing ? minimax(depth - 2, ply + 1, alpha, alpha + 1)
+                                       : minimax(depth - 2, ply + 1, beta - 1, beta);
+                    if (maximizing ? score > alpha : score < beta) {
+                        score = search(false, maximizing, depth - 1, ply + 1, alpha, beta);
+                    }
+                } else {
+                    score = search(first, maximizing, depth - 1, ply + 1, alpha, beta);
+                }
+                board.unmake(move);
+
+                if (maximizing) {
+                    if (score > value) {
+                        value = score;
+                        bestMove = move;
+                    }
+                    alpha = Math.max(alpha, value);
+                } else {
+                    if (score < value) {
+                        value = score;
+                        bestMove = move;
+                    }
+                    beta = Math.min(beta, value);
+                }
+                if (beta <= alpha) { // prune
+                    this.cutoffs++;
+                    if (first) this.firstCutoffs++;
+                    if (history != null) history.cutoff(board.turn(), move, ply, depth);
+                    break;
+                }
+                first = false;
+            }
+
+            int bound;
+            if (value <= alphaOriginal) {
+                bound = TranspositionTable.UPPER;
+            } else if (value >= betaOriginal) {
+                bound = TranspositionTable.LOWER;
+            } else {
+                bound = TranspositionTable.EXACT;
+            }
+            table.store(board.hash(), depth, value, bound, bestMove);
+
+            return value;
+        }
+
+        // Principal variation search: the first move is searched with the
+        // full window, the others with a null window that only tells whether
+        // they beat the best so far, and are searched again if they do
+        int search(boolean first, boolean maximizing, int depth, int ply, int alpha, int beta) {
+            if (first) return minimax(depth, ply, alpha, beta);
+            if (maximizing) {
+                int score = minimax(depth, ply, alpha, alpha + 1);
+                return score > alpha && score < beta ? minimax(depth, ply, alpha, beta) : score;
+            } else {
+                int score = minimax(depth, ply, beta - 1, beta);
+                return score < beta && score > alpha ? minimax(depth, ply, alpha, beta) : score;
+            }
+        }
+
+        // Quiescence search: forcing moves only, up to the given number of plies
+        int quiesce(int plies, int alpha, int beta) {
+            MutableBoard board = this.board;
+            Player player = board.turn();
+            boolean maximizing = (player == Player.X);
+
+            long wins = Evaluate.isOver(board) ? 0 : board.threats(player);
+            if (wins != 0) {
+                // Completing the line ends the game
+                int move = Long.numberOfTrailingZeros(wins);
+                board.make(move);
+                visit();
+                this.leaves++;
+                int score = evaluator.evaluate(board);
+                board.unmake(move);
+                return score;
+            }
+
+            long blocks = board.threats(player.other());
+            long forks = blocks == 0 ? board.forks(player) : 0;
+            if (Evaluate.isOver(board) || plies == 0 || (blocks | forks) == 0) {
+                this.leaves++;
+                return evaluator.evaluate(board);
+            }
+
+            int value;
+            long moves;
+            if (blocks != 0) {
+                // Must block (two or more threats cannot all be blocked, which
+                // the search finds one ply later)
+                value = maximizing ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+                moves = blocks;
+            } else {
+                // Stand pat, or make a double threat
+                this.leaves++;
+                value = evaluator.evaluate(board);
+                if (maximizing ? value >= beta : value <= alpha) return value;
+                if (maximizing) {
+                    alpha = Math.max(alpha, value);
+                } else {
+                    beta = Math.min(beta, value);
+                }
+                moves = forks;
+            }
+
+            for (; moves != 0; moves &= moves - 1) {
+                int move = Long.numberOfTrailingZeros(moves);
+                board.make(move);
+                visit();
+                int score = quiesce(plies - 1, alpha, beta);
+                board.unmake(move);
+
+                if (maximizing) {
+                    value = Math.max(value, score);
+                    alpha = Math.max(alpha, value);
+                } else {
+                    value = Math.min(value, score);
+                    beta = Math.min(beta, value);
+                }
+                if (beta <= alpha) {
+                    this.cutoffs++;
+                    break;
+                }
+            }
+            return value;
+        }
+    }
+
+    public static void main(String[] args) {
+        // Check that the root-split search chooses the same move with the
+        // same score for any number of threads, on random 12-ply positions
+        //
+        //     java Search -plies 5 -threads 8 ordering
+        Parameters params = new Parameters(args);
+        if (params.errors()) System.exit(1);
+        Evaluate.setNoise(params.noise(), params.seed());
+        int maxThreads = Math.max(2, params.threads());
+        SplittableRandom random = new SplittableRandom(1);
+        int positions = 0;
+
+        while (positions < 12) {
+            Board board = new Board();
+            for (int ply = 0; ply < 12 && !Evaluate.isOver(board); ply++) {
+                board = board.next(board.randomMove(random));
+            }
+            if (Evaluate.isOver(board)) continue;
+            positions++;
+
+            int expectedMove = -1;
+            int expectedScore = 0;
+            for (int threads = 1; threads <= maxThreads; threads++) {
+                Search search = new Search(new TranspositionTable(params.hash()), params.plies(), 0)
+                        .ordering(params.ordering()).threads(threads);
+                int move = search.bestMove(board);
+                search.threads(1);  // Shut down the pool
+                if (threads == 1) {
+                    expectedMove = move;
+                    expectedScore = search.score();
+                } else if (move != expectedMove || search.score() != expectedScore) {
+                    throw new AssertionError(String.format("%d threads: %s (%d) instead of %s (%d) on %s",
+                            threads, Coordinate.toCompactString(move), search.score(),
+                            Coordinate.toCompactString(expectedMove), expectedScore, board));
+                }
+            }
+        }
+        System.out.println(positions + " positions checked with 1 to " + maxThreads + " threads");
+    }
+}
@@ -0,0 +1,181 @@
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class SelfPlay {
+
+    // Headless self-play: the AI plays -games games against itself, several
+    // at a time (-threads, all processors by default). Each side has its own
+    // depth, time limit and evaluator (-x-plies, -o-plies, -x-time, -o-time,
+    // -x-eval, -o-eval); -plies, -time and -eval apply to both sides. The
+    // first -random moves of each game are random, seeded by the game
+    // number, so that the games differ and a run can be repeated (with the
+    // same -seed for the evaluation noise, or -no-noise).
+    //
+    //     java SelfPlay -games 1000 -plies 4 -o-eval more ordering -output games.txt
+    //
+    // Each game is written to the -output file (selfplay.txt by default) as
+    // soon as it ends, as one line:
+    //
+    //     <game> <result> <moves>
+    //
+    // The result is X, O or D (draw); moves are in compact notation (the x,
+    // y and z of the square as three digits, see Coordinate). Totals of wins and draws and the time per
+    // searched move of each side are printed at the end.
+
+    private static final class GameRecord {
+        final int number;
+        final int[] moves = new int[Coordinate.NCubed];
+        int count = 0;
+        int result;
+        final long[] searched = new long[2];  // Searched moves, by player
+        final long[] nanos = new long[2];     // Time for them
+        final long[] maxNanos = new long[2];  // Longest one
+        GameRecord(int number) {
+            this.number = number;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Parameters params = new Parameters(args);
+        if (params.errors()) System.exit(1);
+        Evaluate.setUp(params);
+
+        int threads = params.threads(Runtime.getRuntime().availableProcessors());
+        String path = params.output() != null ? params.output() : "selfplay.txt";
+        System.out.printf("%d games on %d thread(s), %d random moves each, noise %s\n",
+                params.games(), threads, params.randomPlies(),
+                params.noise() ? "seed " + params.seed() : "off");
+        for (Player player : Player.values()) {
+            System.out.printf("%s: %s, eval %s\n", player, params.time(player) > 0
+                    ? params.time(player) + " ms per move" : "depth " + params.plies(player),
+                    params.eval(player));
+        }
+
+        // Each thread keeps one search (and transposition table) per side
+        ThreadLocal<Search[]> searches = ThreadLocal.withInitial(() -> new Search[] {
+                search(params, Player.X), search(params, Player.O) });
+
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<GameRecord> records = new ArrayList<>();
+
+        try (PrintWriter output = new PrintWriter(new BufferedWriter(new FileWriter(path)))) {
+            List<Future<GameRecord>> games = new ArrayList<>();
+            for (int game = 1; game <= params.games(); game++) {
+                int number = game;
+                games.add(pool.submit(() -> {
+                    GameRecord record = play(number, searches.get(), params.randomPlies());
+                    synchronized (output) {
+                        output.println(format(record));
+                    }
+                    return record;
+                }));
+            }
+            for (Future<GameRecord> game : games) {
+                records.add(game.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        summary(records, params, (System.nanoTime() - start) / 1e9);
+        System.out.println("Games written to " + path);
+    }
+
+    private static Search search(Parameters params, Player player) {
+        int time = params.time(player);
+        int depth = time > 0 ? Search.MAX_DEPTH : params.plies(player);
+        return new Search(new TranspositionTable(params.hash()), depth, time)
+                .ordering(params.ordering())
+                .quiescence(params.quiescence())
+                .reductions(params.reductions()).futility(params.futility())
+                .evaluator(Evaluator.valueOf(params.eval(player)));
+    }
+
+    private static GameRecord play(int number, Search[] searches, int randomPlies) {
+        GameRecord record = new GameRecord(number);
+        SplittableRandom random = new SplittableRandom(number);
+        for (Search search : searches) {
+            search.table().clear();
+        }
+
+        Board board = new Board();
+        while (!Evaluate.isOver(board)) {
+            int move;
+            if (record.count < randomPlies) {
+                move = board.randomMove(random);
+            } else {
+                int side = board.turn().ordinal();
+                long start = System.nanoTime();
+                move = searches[side].bestMove(board);
+                long elapsed = System.nanoTime() - start;
+                record.searched[side]++;
+                record.nanos[side] += elapsed;
+                record.maxNanos[side] = Math.max(record.maxNanos[side], elapsed);
+            }
+            record.moves[record.count++] = move;
+            board = board.next(move);
+        }
+        record.result = Evaluate.result(board);
+        return record;
+    }
+
+    private static String format(GameRecord record) {
+        StringBuilder line = new StringBuilder();
+        line.append(record.number).append(' ');
+        switch (record.result) {
+            case Result.X_WINS: line.append('X'); break;
+            case Result.O_WINS: line.append('O'); break;
+            default: line.append('D'); break;
+        }
+        for (int i = 0; i < record.count; i++) {
+            line.append(' ').append(Coordinate.toCompactString(record.moves[i]));
+        }
+        return line.toString();
+    }
+
+    private static void summary(List<GameRecord> records, Parameters params, double seconds) {
+        int[] results = new int[4];
+        long[] searched = new long[2];
+        long[] nanos = new long[2];
+        long[] maxNanos = new long[2];
+        long plies = 0;
+
+        for (GameRecord record : records) {
+            results[record.result]++;
+            plies += record.count;
+            for (int side = 0; side < 2; side++) {
+                searched[side] += record.searched[side];
+                nanos[side] += record.nanos[side];
+                maxNanos[side] = Math.max(maxNanos[side], record.maxNanos[side]);
+            }
+        }
+
+        int games = records.size();
+        System.out.println();
+        System.out.printf("%d games in %.1f s, %.1f moves per game\n", games, seconds,
+                games > 0 ? (double) plies / games : 0);
+        System.out.printf("X wins: %6d (%5.1f%%)\n", results[Result.X_WINS], percent(results[Result.X_WINS], games));
+        System.out.printf("O wins: %6d (%5.1f%%)\n", results[Result.O_WINS], percent(results[Result.O_WINS], games));
+        System.out.printf("Draws:  %6d (%5.1f%%)\n", results[Result.TIE], percent(results[Result.TIE], games));
+
+        System.out.println();
+        System.out.printf("%4s %10s %10s %12s %12s\n", "Side", "Eval", "Moves", "Mean (ms)", "Max (ms)");
+        for (Player player : Player.values()) {
+            int side = player.ordinal();
+            System.out.printf("%4s %10s %10d %12.2f %12.2f\n", player, params.eval(player), searched[side],
+                    searched[side] > 0 ? nanos[side] / 1e6 / searched[side] : 0, maxNanos[side] / 1e6);
+        }
+    }
+
+    private static double percent(int count, int total) {
+        return total > 0 ? 100.0 * count / total : 0;
+    }
+}
@@ -0,0 +1,113 @@
+import java.util.concurrent.atomic.LongAdder;
+
+public class Statistics {
+
+    // Search statistics for one move (see Search.statistics()).
+    //
+    // Each search thread counts in plain fields of its own and adds them
+    // here every Search.CHECK_INTERVAL nodes (so the node limit sees an
+    // up-to-date total) and when it finishes, so counting costs no more
+    // than an increment per node and the totals are safe to update from
+    // several threads at once.
+
+    private final LongAdder nodes = new LongAdder();         // Positions searched
+    private final LongAdder leaves = new LongAdder();        // Positions evaluated
+    private final LongAdder cutoffs = new LongAdder();       // Beta cutoffs
+    private final LongAdder firstCutoffs = new LongAdder();  // Cutoffs by the first move searched
+
+    private final long[] iterationNodes = new long[Search.MAX_DEPTH + 1];  // Nodes up to each depth
+    private final long[] iterationTimes = new long[Search.MAX_DEPTH + 1];  // Nanoseconds up to each depth
+    private int iterations;                 // Iterations completed
+
+    private long start;                     // System.nanoTime() at the start of the search
+    private long elapsed;                   // Nanoseconds for the whole search
+    private long probes;                    // Transposition table probes during the search
+    private long hits;                      // ... and hits
+
+    public void start(TranspositionTable table) {
+        this.nodes.reset();
+        this.leaves.reset();
+        this.cutoffs.reset();
+        this.firstCutoffs.reset();
+        this.iterations = 0;
+        this.start = System.nanoTime();
+        this.elapsed = 0;
+        this.probes = -table.probes();
+        this.hits = -table.hits();
+    }
+
+    public void add(long nodes, long leaves, long cutoffs, long firstCutoffs) {
+        this.nodes.add(nodes);
+        this.leaves.add(leaves);
+        this.cutoffs.add(cutoffs);
+        this.firstCutoffs.add(firstCutoffs);
+    }
+
+    public void iteration(int depth) {
+        // Called when the iteration to the given depth completes
+        this.iterationNodes[depth] = this.nodes.sum();
+        this.iterationTimes[depth] = System.nanoTime() - this.start;
+        this.iterations = depth;
+    }
+
+    public void finish(TranspositionTable table) {
+        this.elapsed = System.nanoTime() - this.start;
+        this.probes += table.probes();
+        this.hits += table.hits();
+    }
+
+    // Selectors
+
+    public long nodes() {
+        return this.nodes.sum();
+    }
+
+    public long leaves() {
+        return this.leaves.sum();
+    }
+
+    public long cutoffs() {
+        return this.cutoffs.sum();
+    }
+
+    public long firstCutoffs() {
+        return this.firstCutoffs.sum();
+    }
+
+    public double nodesPerSecond() {
+        return this.elapsed > 0 ? this.nodes() * 1e9 / this.elapsed : 0;
+    }
+
+    public double hitRate() {
+        return this.probes > 0 ? (double) this.hits / this.probes : 0;
+    }
+
+    public double branchingFactor() {
+        // Effective branching factor: growth in nodes from the next-to-last
+        // iteration to the last (0 if there were fewer than two)
+        int depth = this.iterations;
+        if (depth < 2) return 0;
+        long last = this.iterationNodes[depth] - this.iterationNodes[depth - 1];
+        long previous = this.iterationNodes[depth - 1] - this.iterationNodes[depth - 2];
+        return previous > 0 ? (double) last / previous : 0;
+    }
+
+    public void print() {
+        long cutoffs = this.cutoffs();
+        System.out.printf("Nodes searched: %d in %d ms (%.0f nodes/sec)\n",
+                this.nodes(), this.elapsed / 1_000_000, this.nodesPerSecond());
+        System.out.printf("Leaf evaluations: %d\n", this.leaves());
+        System.out.printf("Beta cutoffs: %d (%.1f%% on the first move)\n",
+                cutoffs, cutoffs > 0 ? 100.0 * this.firstCutoffs() / cutoffs : 0);
+        System.out.printf("Effective branching factor: %.2f\n", this.branchingFactor());
+        System.out.printf("Hash table: %d hits / %d probes (%.1f%%)\n",
+                this.hits, this.probes, 100.0 * this.hitRate());
+
+        System.out.printf("%8s %12s %10s\n", "Depth", "Nodes", "Time (ms)");
+        for (int depth = 1; depth <= this.iterations; depth++) {
+            System.out.printf("%8d %12d %10.1f\n", depth,
+                    this.iterationNodes[depth] - this.iterationNodes[depth - 1],
+                    (this.iterationTimes[depth] - this.iterationTimes[depth - 1]) / 1e6);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class Symmetry {
+
+    // The 192 symmetries of the 4x4x4 board: permutations of the positions
+    // that map every line to a line. They are the 48 symmetries of the cube
+    // (each coordinate axis mapped to an axis, possibly reflected: i -> N-1-i)
+    // combined with 4 permutations of the coordinate values 0..3 applied to
+    // all three coordinates at once:
+    //
+    //     0 1 2 3   identity
+    //     0 2 1 3   swap the two inner layers
+    //     1 0 3 2   swap inner and outer layers ("inside out")
+    //     1 3 0 2   both
+    //
+    // Each symmetry is stored as a table of 8 x 256 longs: the image of each
+    // possible byte of a bitboard at each byte offset. Transforming a
+    // bitboard takes 8 lookups instead of a loop over its bits.
+    //
+    // The canonical form of a position is the smallest (x, o) pair, compared
+    // as unsigned longs with x first, among the images of the position under
+    // all the symmetries. Symmetric positions have the same canonical form.
+
+    public static final int COUNT = 192;
+
+    private static final int N = Coordinate.N;
+    private static final int[][] permutations = new int[COUNT][Coordinate.NCubed];
+    private static final int[][] inverses = new int[COUNT][Coordinate.NCubed];
+    private static final long[][] tables = new long[COUNT][8 * 256];
+
+    static {
+        int[][] axes = { {0,1,2}, {0,2,1}, {1,0,2}, {1,2,0}, {2,0,1}, {2,1,0} };
+        int[][] values = { {0,1,2,3}, {0,2,1,3}, {1,0,3,2}, {1,3,0,2} };
+        int count = 0;
+        for (int[] value : values) {
+            for (int[] axis : axes) {
+                for (int reflect = 0; reflect < 8; reflect++) {
+                    for (int position = 0; position < Coordinate.NCubed; position++) {
+                        int[] c = { Coordinate.getX(position), Coordinate.getY(position), Coordinate.getZ(position) };
+                        int[] image = new int[3];
+                        for (int i = 0; i < 3; i++) {
+                            int v = value[c[axis[i]]];
+                            image[i] = (reflect & (1 << i)) != 0 ? N - 1 - v : v;
+                        }
+                        int target = Coordinate.position(image[0], image[1], image[2]);
+                        permutations[count][position] = target;
+                        inverses[count][target] = position;
+                    }
+                    count++;
+                }
+            }
+        }
+        assert count == COUNT;
+
+        for (int symmetry = 0; symmetry < COUNT; symmetry++) {
+            for (int offset = 0; offset < 8; offset++) {
+                for (int bits = 0; bits < 256; bits++) {
+                    long image = 0;
+                    for (int bit = 0; bit < 8; bit++) {
+                        if ((bits & (1 << bit)) != 0) {
+                            image |= 1L << permutations[symmetry][offset * 8 + bit];
+                        }
+                    }
+                    tables[symmetry][offset * 256 + bits] = image;
+                }
+            }
+        }
+        assert preservesLines();
+        assert distinct();
+    }
+
+    private static boolean distinct() {
+        Set<List<Integer>> seen = new HashSet<>();
+        for (int[] permutation : permutations) {
+            seen.add(Arrays.stream(permutation).boxed().toList());
+        }
+        return seen.size() == COUNT;
+    }
+
+    private static boolean preservesLines() {
+        for (int symmetry = 0; symmetry < COUNT; symmetry++) {
+            for (Line line : Line.lines) {
+                if (Line.find(transform(line.positions(), symmetry)) == null) return false;
+            }
+        }
+        return true;
+    }
+
+    // Transformations
+
+    public static int transform(int position, int symmetry) {
+        return permutations[symmetry][position];
+    }
+
+    public static int untransform(int position, int symmetry) {
+        // Inverse of transform(position, symmetry)
+        return inverses[symmetry][position];
+    }
+
+    public static long transform(long bits, int symmetry) {
+        long[] table = tables[symmetry];
+        return table[          (int) (bits        & 0xFF)]
+             | table[ 256 + (int) ((bits >>>  8) & 0xFF)]
+             | table[ 512 + (int) ((bits >>> 16) & 0xFF)]
+             | table[ 768 + (int) ((bits >>> 24) & 0xFF)]
+             | table[1024 + (int) ((bits >>> 32) & 0xFF)]
+             | table[1280 + (int) ((bits >>> 40) & 0xFF)]
+             | table[1536 + (int) ((bits >>> 48) & 0xFF)]
+             | table[1792 + (int) ((bits >>> 56) & 0xFF)];
+    }
+
+    // Canonical form
+
+    public static int canonical(long x, long o) {
+        // Returns a symmetry mapping (x, o) to its canonical form
+        int best = 0;
+        long bestX = x;
+        long bestO = o;
+        for (int symmetry = 1; symmetry < COUNT; symmetry++) {
+            long tx = transform(x, symmetry);
+            int compare = Long.compareUnsigned(tx, bestX);
+            if (compare > 0) continue;
+
+            long to = transform(o, symmetry);
+            if (compare < 0 || Long.compareUnsigned(to, bestO) < 0) {
+                best = symmetry;
+                bestX = tx;
+                bestO = to;
+            }
+        }
+        return best;
+    }
+
+    public static long hash(long x, long o) {
+        // Hash of the canonical form: equal for symmetric positions
+        int symmetry = canonical(x, o);
+        long h = transform(x, symmetry) * 0x9E3779B97F4A7C15L;
+        h ^= Long.rotateLeft(transform(o, symmetry) * 0xC2B2AE3D27D4EB4FL, 31);
+        return h ^ (h >>> 29);
+    }
+
+    public static Board canonical(Board board) {
+        int symmetry = canonical(board.get(Player.X), board.get(Player.O));
+        return Board.valueOf(transform(board.get(Player.X), symmetry), transform(board.get(Player.O), symmetry));
+    }
+}
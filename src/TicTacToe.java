@@ -1,16 +1,26 @@
+import java.io.IOException;
 import java.util.Stack;
 import java.util.Scanner;
 
 public class TicTacToe {
 
     private static int maxPlies = 2;
+    private static long timeLimit = 0;
     private static boolean trace = false;
+    private static boolean verbose = false;
+    private static boolean statistics = false;
     private static Player aiPlayer = Player.X;
     private static Player humanPlayer = Player.O;
 
     public static void main(String[] args) throws Exception {
 
         Parameters params = new Parameters(args);
+        Evaluate.setUp(params);
+
+        if (params.solve()) {
+            solve(Board.valueOf(params.board()), params);
+            return;
+        }
 
         if (params.first()) {
             aiPlayer = Player.X;
@@ -21,10 +31,39 @@ public class TicTacToe {
         }
 
         trace = params.trace();
-        maxPlies = params.plies();
+        verbose = params.verbose();
+        statistics = params.statistics();
+        timeLimit = params.time();
+        maxPlies = timeLimit > 0 ? Search.MAX_DEPTH : params.plies();
+
+        // The table is kept for the whole game (including undo): positions
+        // searched for one move are likely to be reached again by the next.
+        TranspositionTable table = TranspositionTable.of(params);
+        Search search = new Search(table, maxPlies, timeLimit)
+                .ordering(params.ordering()).threads(params.threads()).lazy(params.lazy())
+                .quiescence(params.quiescence())
+                .reductions(params.reductions()).futility(params.futility())
+                .evaluator(Evaluator.valueOf(params.eval()))
+                .trace(trace).verbose(verbose);
+
+        Book book = null;
+        if (params.book() != null) {
+            try {
+                book = Book.open(params.book());
+            } catch (IOException e) {
+                System.err.println(e.getMessage());
+                System.exit(1);
+            }
+            System.out.println("Opening book: " + book.size() + " positions");
+        }
 
         System.out.println("AI plays as: " + aiPlayer);
-        System.out.println("Search depth: " + maxPlies);
+        if (timeLimit > 0) System.out.println("Time limit: " + timeLimit + " ms");
+        else System.out.println("Search depth: " + maxPlies);
+        if (params.threads() > 1) System.out.println("Threads: " + params.threads()
+                + (params.lazy() ? " (lazy SMP)" : " (root split)"));
+        if (params.ordering()) System.out.println("Move ordering: " + "on");
+        else System.out.println("Move ordering: " + "off");
         if (trace) System.out.println("Trace mode: " + "on");
         else System.out.println("Trace mode: " + "off");
         System.out.println();
@@ -75,12 +114,27 @@ public class TicTacToe {
                 // AI turn
                 System.out.println("AI is thinking...");
 
-                int bestMove = minimaxRoot(board, maxPlies);
+                int bestMove = book != null ? book.lookup(board) : -1;
+                boolean searched = bestMove < 0;
+                if (searched) {
+                    bestMove = search.bestMove(board);
+                } else {
+                    System.out.println("Book move");
+                }
                 int x = Coordinate.getX(bestMove);
                 int y = Coordinate.getY(bestMove);
                 int z = Coordinate.getZ(bestMove);
 
                 System.out.println("AI move: " + Coordinate.toString(x, y, z));
+                if (timeLimit > 0) {
+                    System.out.println("Depth searched: " + search.depthReached());
+                }
+                if (statistics && searched) {
+                    search.statistics().print();
+                } else if (verbose) {
+                    System.out.printf("Hash table: %d hits / %d probes (%.1f%%)\n",
+                            table.hits(), table.probes(), 100.0 * table.hitRate());
+                }
                 board = board.next(bestMove);
                 history.push(board);
 
@@ -90,12 +144,12 @@ public class TicTacToe {
         }
 
         // Game Over
-        String result = Evaluate.winner(board);
+        int result = Evaluate.result(board);
 
-        if (result != null && result.equals("Tie")) {
+        if (result == Result.TIE) {
             System.out.println("Game over: Tie!");
-        } else if (result != null) {
-            System.out.println("Game over: " + result);
+        } else if (result != Result.NONE) {
+            System.out.println("Game over: " + Result.toString(result));
 
             // Find and display the winning line
             long xPositions = board.get(Player.X);
@@ -115,69 +169,32 @@ public class TicTacToe {
         }
     }
 
-    // Mini Max
-    private static int minimaxRoot(Board board, int depth) {
-
-        boolean maximizing = (board.turn() == Player.X);
-        int bestScore = maximizing ? Integer.MIN_VALUE : Integer.MAX_VALUE;
-        int bestMove = -1;
-
-        for (int move : board.moves()) {
-            Board next = board.next(move);
-            int score = minimax(next, depth - 1,
-                    Integer.MIN_VALUE, Integer.MAX_VALUE);
-
-            if (trace) {
-                int x = Coordinate.getX(move);
-                int y = Coordinate.getY(move);
-                int z = Coordinate.getZ(move);
-                System.out.println("Move " + Coordinate.toString(x, y, z)
-                        + " → score = " + score);
-            }
-
-            if (maximizing) {
-                if (score > bestScore) {
-                    bestScore = score;
-                    bestMove = move;
-                }
-            } else {
-                if (score < bestScore) {
-                    bestScore = score;
-                    bestMove = move;
-                }
-            }
-        }
-
-        return bestMove;
-    }
-
-    // Minimax with Alpha-Beta
-    private static int minimax(Board board, int depth, int alpha, int beta) {
-
-        if (depth == 0 || Evaluate.isOver(board))
-            return Evaluate.evaluate(board);
-
-        boolean maximizing = (board.turn() == Player.X);
+    // Solver mode: game value of the given board by proof-number search
+    private static void solve(Board board, Parameters params) {
+        System.out.println("Solving:");
+        board.print();
 
-        if (maximizing) {
-            int value = Integer.MIN_VALUE;
-            for (int move : board.moves()) {
-                value = Math.max(value,
-                        minimax(board.next(move), depth - 1, alpha, beta));
-                alpha = Math.max(alpha, value);
-                if (beta <= alpha) break; // prune
-            }
-            return value;
+        ProofNumberSearch solver = new ProofNumberSearch(params.hash());
+        long start = System.nanoTime();
+        int result = solver.solve(board, params.time());
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
 
+        if (result == Result.NONE) {
+            System.out.println("Result: unknown (time limit reached)");
+        } else if (result == Result.TIE) {
+            System.out.println("Result: draw");
         } else {
-            int value = Integer.MAX_VALUE;
-            for (int move : board.moves()) {
-                value = Math.min(value,
-                        minimax(board.next(move), depth - 1, alpha, beta));
-                beta = Math.min(beta, value);
-                if (beta <= alpha) break; // prune
+            Player winner = result == Result.X_WINS ? Player.X : Player.O;
+            String side = winner == board.turn() ? "win" : "loss";
+            System.out.println("Result: " + Result.toString(result) + " (" + side + " for " + board.turn() + " to move)");
+            if (solver.winningMove() >= 0) {
+                System.out.println("Winning move: " + Coordinate.toString(solver.winningMove()));
             }
-            return value;
         }
+        if (result != Result.NONE) {
+            int size = solver.proofSize();
+            System.out.println("Proof size: " + (size >= 0 ? size + " positions" : "unknown (time limit reached)"));
+        }
+        System.out.println("Nodes searched: " + solver.nodes() + " in " + elapsed + " ms");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,300 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+public class TranspositionTable {
+
+    // A fixed-size, direct-mapped table of search results keyed by the
+    // Zobrist hash of the board. Each entry is packed into a single long:
+    //
+    //     bits  0-31: score
+    //     bits 32-39: depth (plies searched below this position)
+    //     bits 40-41: bound type (LOWER, UPPER or EXACT)
+    //     bits 48-55: best move (0xFF if none)
+    //
+    // An entry of 0 is never stored (the bound type is never 0), so it
+    // doubles as the "not found" result of probe().
+    //
+    // The table is shared by all search threads without locking. Each slot
+    // stores the hash XORed with the entry, so a slot torn by concurrent
+    // writers (key from one store, entry from another) fails the key check
+    // and reads as a miss instead of returning another position's result.
+    //
+    // A table can also be kept in a memory-mapped file (see open), off the
+    // Java heap, so that search results survive a restart. File layout
+    // (little-endian):
+    //
+    //     int  MAGIC
+    //     int  VERSION
+    //     long number of slots
+    //     long fingerprint of the Zobrist keys
+    //     long fingerprint of the scores (see scores())
+    //     ... zeros up to HEADER_BYTES
+    //     slots: long key (hash XOR entry), long entry
+    //
+    // The key doubles as a checksum of the slot: a slot left half written
+    // or otherwise damaged fails the key check like a torn one. Scores are
+    // those of the evaluation and search in use when they were stored, so a
+    // file written with another evaluator, other weights, other noise (on
+    // or off, or another -seed) or other quiescence, reduction or futility
+    // settings is cleared when it is opened.
+
+    public static final int LOWER = 1;   // Score is a lower bound (search failed high)
+    public static final int UPPER = 2;   // Score is an upper bound (search failed low)
+    public static final int EXACT = 3;   // Score is exact
+
+    public static final int MAGIC = 0x51545442;   // "QTTB"
+    public static final int VERSION = 2;
+
+    private static final int NO_MOVE = 0xFF;
+    private static final int ENTRY_BYTES = 16;  // One key and one entry per slot
+    private static final int HEADER_BYTES = 4096;
+    private static final int CHUNK_SHIFT = 26;  // Slots per mapping: 1 GB (a mapping is < 2 GB)
+    private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+    private final long[] keys;          // On the heap (null if mapped)
+    private final long[] entries;
+    private final LongBuffer[] chunks;  // Mapped file (null if on the heap)
+    private final int slots;
+    private final int mask;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+
+    public TranspositionTable(int megabytes) {
+        int slots = slots(megabytes);
+        this.keys = new long[slots];
+        this.entries = new long[slots];
+        this.chunks = null;
+        this.slots = slots;
+        this.mask = slots - 1;
+    }
+
+    private TranspositionTable(LongBuffer[] chunks, int slots) {
+        this.keys = null;
+        this.entries = null;
+        this.chunks = chunks;
+        this.slots = slots;
+        this.mask = slots - 1;
+    }
+
+    private static int slots(int megabytes) {
+        // Largest power of two number of slots that fits in the given size
+        long bytes = Math.max(1, megabytes) * 1024L * 1024L;
+        return Integer.highestOneBit((int) Math.min(bytes / ENTRY_BYTES, 1 << 30));
+    }
+
+    public static TranspositionTable of(Parameters params) {
+        // The table given by the options, for the programs' main methods:
+        // in the -hash-file if any (after Evaluate.setUp), else on the heap.
+        // A file that cannot be used is reported, and the program exits.
+        if (params.hashFile() == null) return new TranspositionTable(params.hash());
+        try {
+            return open(params.hashFile(), params.hash(), scores(params));
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+            return null;
+        }
+    }
+
+    private static long scores(Parameters params) {
+        // Changes with anything that changes what a stored score or bound
+        // means: the evaluation, and the search options that change the
+        // value of a search to a given depth (move ordering and threads
+        // only change how fast it is found)
+        long hash = Evaluate.fingerprint(params.eval());
+        hash = hash * 31 + params.quiescence();
+        hash = hash * 31 + (params.reductions() ? 1 : 0);
+        hash = hash * 31 + (params.futility() ? 1 : 0);
+        return hash;
+    }
+
+    public static TranspositionTable open(String path, int megabytes, long scores) throws IOException {
+        // Table in the given file: reopened if it exists, else created with
+        // the given size. A file holding other scores (see scores()) is
+        // cleared. The IOException messages are meant for the user.
+        try (FileChannel channel = FileChannel.open(Path.of(path), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            int slots = slots(megabytes);
+            boolean created = channel.size() == 0;
+            if (!created && channel.size() < HEADER_BYTES) {
+                throw new IOException(path + " is not a transposition table");
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (!created) {
+                if (header.getInt(0) != MAGIC) {
+                    throw new IOException(path + " is not a transposition table");
+                }
+                if (header.getInt(4) != VERSION) {
+                    throw new IOException("Unsupported transposition table version: " + header.getInt(4));
+                }
+                if (header.getLong(16) != fingerprint()) {
+                    throw new IOException(path + " was written with different Zobrist keys");
+                }
+                if (header.getLong(8) != slots) {
+                    long size = header.getLong(8) * ENTRY_BYTES >> 20;
+                    throw new IOException(String.format("%s holds %d MB, not %d MB (open it with -hash %d)",
+                            path, size, (long) slots * ENTRY_BYTES >> 20, size));
+                }
+                if (channel.size() < HEADER_BYTES + (long) slots * ENTRY_BYTES) {
+                    throw new IOException("Truncated transposition table: " + path);
+                }
+            }
+
+            // The mappings stay valid after the channel is closed
+            LongBuffer[] chunks = new LongBuffer[(slots + CHUNK_MASK) >>> CHUNK_SHIFT];
+            for (int i = 0; i < chunks.length; i++) {
+                long bytes = (long) Math.min(slots - (i << CHUNK_SHIFT), 1 << CHUNK_SHIFT) * ENTRY_BYTES;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                                HEADER_BYTES + ((long) i << CHUNK_SHIFT) * ENTRY_BYTES, bytes)
+                        .order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            }
+            TranspositionTable table = new TranspositionTable(chunks, slots);
+
+            if (created) {
+                // Header last, once the file has its full size
+                header.putInt(0, MAGIC);
+                header.putInt(4, VERSION);
+                header.putLong(8, slots);
+                header.putLong(16, fingerprint());
+                header.putLong(24, scores);
+                header.force();
+            } else if (header.getLong(24) != scores) {
+                // Scores of another evaluation or search: clear them before
+                // the new fingerprint goes in
+                System.err.println(path + " was written with a different evaluation or search, clearing it"
+                        + " (keep -eval, -weights, -quiescence, -lmr, -futility and -seed or -no-noise"
+                        + " the same to reuse it)");
+                table.clear();
+                header.putLong(24, scores);
+                header.force();
+            }
+            return table;
+        }
+    }
+
+    private static long fingerprint() {
+        // Changes if the Zobrist keys do, which would make the stored keys meaningless
+        return Zobrist.hash(-1L, 0) * 31 + Zobrist.hash(0, -1L);
+    }
+
+    public int size() {
+        return this.slots;
+    }
+
+    public boolean persistent() {
+        // Is the table kept in a file?
+        return this.chunks != null;
+    }
+
+    // Lookup & update
+
+    public long probe(long hash) {
+        int index = (int) hash & this.mask;
+        long entry = entry(index);
+        long key = key(index);
+        this.probes.increment();
+        if ((key ^ entry) == hash && entry != 0) {
+            this.hits.increment();
+            return entry;
+        }
+        return 0;
+    }
+
+    public void store(long hash, int depth, int score, int bound, int move) {
+        assert bound == LOWER || bound == UPPER || bound == EXACT;
+        int index = (int) hash & this.mask;
+
+        // Keep a deeper result for the same position; otherwise always replace
+        long old = entry(index);
+        if ((key(index) ^ old) == hash && depth(old) > depth) return;
+
+        long entry = pack(depth, score, bound, move);
+        set(index, hash ^ entry, entry);
+    }
+
+    public void clear() {
+        if (this.chunks == null) {
+            Arrays.fill(this.keys, 0);
+            Arrays.fill(this.entries, 0);
+        } else {
+            for (int index = 0; index < this.slots; index++) {
+                set(index, 0, 0);
+            }
+        }
+    }
+
+    // Slots, on the heap or in the file
+
+    private long key(int index) {
+        if (this.chunks == null) return this.keys[index];
+        return this.chunks[index >>> CHUNK_SHIFT].get((index & CHUNK_MASK) << 1);
+    }
+
+    private long entry(int index) {
+        if (this.chunks == null) return this.entries[index];
+        return this.chunks[index >>> CHUNK_SHIFT].get((index & CHUNK_MASK) << 1 | 1);
+    }
+
+    private void set(int index, long key, long entry) {
+        if (this.chunks == null) {
+            this.keys[index] = key;
+            this.entries[index] = entry;
+        } else {
+            LongBuffer chunk = this.chunks[index >>> CHUNK_SHIFT];
+            chunk.put((index & CHUNK_MASK) << 1, key);
+            chunk.put((index & CHUNK_MASK) << 1 | 1, entry);
+        }
+    }
+
+    // Statistics
+
+    public long probes() {
+        return this.probes.sum();
+    }
+
+    public long hits() {
+        return this.hits.sum();
+    }
+
+    public double hitRate() {
+        long probes = probes();
+        return probes == 0 ? 0.0 : (double) hits() / probes;
+    }
+
+    // Packing & unpacking entries
+
+    private static long pack(int depth, int score, int bound, int move) {
+        long entry = score & 0xFFFFFFFFL;
+        entry |= (long) (depth & 0xFF) << 32;
+        entry |= (long) bound << 40;
+        entry |= (long) (move < 0 ? NO_MOVE : move) << 48;
+        return entry;
+    }
+
+    public static int score(long entry) {
+        return (int) entry;
+    }
+
+    public static int depth(long entry) {
+        return (int) (entry >>> 32) & 0xFF;
+    }
+
+    public static int bound(long entry) {
+        return (int) (entry >>> 40) & 0x3;
+    }
+
+    public static int move(long entry) {
+        int move = (int) (entry >>> 48) & 0xFF;
+        return move == NO_MOVE ? -1 : move;
+    }
+}
@@ -0,0 +1,207 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class Tuner {
+
+    // Texel-style tuning of the Evaluate weights.
+    //
+    // The positions come from self-play game records (-input, see SelfPlay).
+    // Every quiet position of every game is labelled with the game's result:
+    // 1 for an X win, 0 for an O win and 0.5 for a draw. A position is quiet
+    // if the game is not over and neither player has an open 3 in a row. The
+    // evaluation is turned into a predicted result by the sigmoid
+    // 1 / (1 + exp(-K * eval)), and the tuner minimizes the mean squared
+    // error of the predictions.
+    //
+    // K is fitted first, for the starting weights (the defaults or
+    // -weights). Then each weight in turn is moved up or down by a step as
+    // long as that lowers the error. Steps start at a tenth of the weight,
+    // are doubled after a move that helps and halved when neither direction
+    // helps, until they are all below 1.
+    //
+    // Weights of features that are 0 in every position are not tuned, since
+    // the error does not depend on them. An open 3 in a row is a threat, so
+    // quiet positions never have any: THREES keeps its starting weight, and
+    // FORCED_WINS is tuned on the four corners and four centers patterns
+    // only (its intersecting threes never occur either).
+    //
+    // The evaluation is linear in the weights, so the features of each
+    // position are extracted once, and each error is a pass over the feature
+    // vectors. Both run in parallel on all processors.
+    //
+    //     java SelfPlay -games 20000 -plies 3 ordering -output games.txt
+    //     java Tuner -input games.txt -output evaluate.weights
+    //     java TicTacToe -weights evaluate.weights ...
+
+    private static final int F = Evaluate.FEATURES;
+
+    private final int[] features;      // F features per position
+    private final double[] results;    // Result per position (1 = X wins)
+    private final int count;           // Number of positions
+
+    public Tuner(List<String> games) {
+        int[][] positions = games.parallelStream()
+                .map(Tuner::positions)
+                .toArray(int[][]::new);
+
+        this.count = Arrays.stream(positions).mapToInt(game -> game.length / (F + 1)).sum();
+        this.features = new int[this.count * F];
+        this.results = new double[this.count];
+
+        int n = 0;
+        for (int[] game : positions) {
+            for (int i = 0; i < game.length; i += F + 1, n++) {
+                System.arraycopy(game, i, this.features, n * F, F);
+                this.results[n] = game[i + F] / 2.0;
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Parameters params = new Parameters(args);
+        if (params.errors()) System.exit(1);
+        if (params.weights() != null) Evaluate.loadWeights(params.weights());
+        if (params.input() == null) {
+            System.err.println("No game records given (-input)");
+            System.exit(1);
+        }
+        String path = params.output() != null ? params.output() : "evaluate.weights";
+
+        long start = System.nanoTime();
+        List<String> games = Files.readAllLines(Path.of(params.input()));
+        Tuner tuner = new Tuner(games);
+        System.out.printf("%d positions from %d games (%.1f s)\n", tuner.count, games.size(),
+                (System.nanoTime() - start) / 1e9);
+
+        int[] weights = Evaluate.weights();
+        double k = tuner.fitScale(weights);
+        System.out.printf("K = %.3g, error %.6f\n", k, tuner.error(weights, k));
+        String untuned = IntStream.range(0, F).filter(j -> !tuner.tunable(j))
+                .mapToObj(Evaluate::name).collect(Collectors.joining(" "));
+        if (!untuned.isEmpty()) System.out.println("Not tuned (0 in every quiet position): " + untuned);
+
+        weights = tuner.tune(weights, k);
+        double error = tuner.error(weights, k);
+        String comment = String.format("Tuned on %d positions from %s: K = %.3g, error %.6f",
+                tuner.count, params.input(), k, error);
+        if (!untuned.isEmpty()) comment += "; not tuned: " + untuned;
+        Evaluate.saveWeights(path, weights, comment);
+        System.out.printf("Weights written to %s (%.1f s)\n", path, (System.nanoTime() - start) / 1e9);
+    }
+
+    private static int[] positions(String line) {
+        // Features and result (0, 1 or 2 halves of a point for X) of each
+        // quiet position of one game record: "<game> <result> <moves>"
+        String[] words = line.trim().split("\\s+");
+        if (words.length < 2) return new int[0];
+
+        int result;
+        switch (words[1]) {
+            case "X": result = 2; break;
+            case "O": result = 0; break;
+            case "D": result = 1; break;
+            default: throw new IllegalArgumentException("Invalid game record: " + line);
+        }
+
+        int[] positions = new int[(words.length - 1) * (F + 1)];
+        int[] features = new int[F];
+        int length = 0;
+        Board board = new Board();
+        for (int i = 2; i <= words.length; i++) {
+            if (Evaluate.isOver(board)) break;
+            if (board.threats(Player.X) == 0 && board.threats(Player.O) == 0) {
+                Evaluate.features(board, features);
+                System.arraycopy(features, 0, positions, length, F);
+                positions[length + F] = result;
+                length += F + 1;
+            }
+            if (i == words.length) break;
+
+            int move = Coordinate.valueOf(words[i]);
+            if (move < 0 || !board.isEmpty(move)) {
+                throw new IllegalArgumentException("Invalid move " + words[i] + " in game record: " + line);
+            }
+            board = board.next(move);
+        }
+        return Arrays.copyOf(positions, length);
+    }
+
+    public double error(int[] weights, double k) {
+        // Mean squared error of the predicted results
+        return IntStream.range(0, this.count).parallel().mapToDouble(n -> {
+            long eval = 0;
+            for (int j = 0; j < F; j++) {
+                eval += (long) weights[j] * this.features[n * F + j];
+            }
+            double predicted = 1 / (1 + Math.exp(-k * eval));
+            double difference = this.results[n] - predicted;
+            return difference * difference;
+        }).sum() / Math.max(1, this.count);
+    }
+
+    public double fitScale(int[] weights) {
+        // K minimizing the error for the given weights (ternary search on
+        // log10 K, assuming the error has a single minimum)
+        double low = -8;
+        double high = 0;
+        for (int i = 0; i < 60; i++) {
+            double a = low + (high - low) / 3;
+            double b = high - (high - low) / 3;
+            if (error(weights, Math.pow(10, a)) < error(weights, Math.pow(10, b))) {
+                high = b;
+            } else {
+                low = a;
+            }
+        }
+        return Math.pow(10, (low + high) / 2);
+    }
+
+    public boolean tunable(int feature) {
+        // Does the feature appear (is it not 0) in any position?
+        for (int n = 0; n < this.count; n++) {
+            if (this.features[n * F + feature] != 0) return true;
+        }
+        return false;
+    }
+
+    public int[] tune(int[] weights, double k) {
+        // Weights that are not tunable() start with a step of 0
+        weights = weights.clone();
+        int[] steps = new int[F];
+        for (int j = 0; j < F; j++) {
+            steps[j] = tunable(j) ? Math.max(1, Math.abs(weights[j]) / 10) : 0;
+        }
+
+        double best = error(weights, k);
+        for (int pass = 1; Arrays.stream(steps).anyMatch(step -> step > 0); pass++) {
+            for (int j = 0; j < F; j++) {
+                if (steps[j] == 0) continue;
+
+                boolean improved = false;
+                for (int direction : new int[] { +1, -1 }) {
+                    weights[j] += direction * steps[j];
+                    double error = error(weights, k);
+                    if (error < best) {
+                        best = error;
+                        improved = true;
+                        steps[j] *= 2;
+                        break;
+                    }
+                    weights[j] -= direction * steps[j];
+                }
+                if (!improved) steps[j] /= 2;
+            }
+
+            StringBuilder line = new StringBuilder();
+            for (int j = 0; j < F; j++) {
+                line.append(' ').append(Evaluate.name(j)).append(' ').append(weights[j]);
+            }
+            System.out.printf("Pass %d: error %.6f,%s\n", pass, best, line);
+        }
+        return weights;
+    }
+}
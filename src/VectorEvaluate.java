@@ -0,0 +1,44 @@
+import java.util.SplittableRandom;
+
+public class VectorEvaluate {
+
+    // Evaluate.evaluate with the line tallies recomputed by scanning all 76
+    // lines in SIMD lanes (VectorLineScan) instead of taken from the board's
+    // incremental tallies. Falls back to the scalar scan when the Vector API
+    // is not available. Gives the same scores as Evaluate.
+    //
+    //     java --add-modules jdk.incubator.vector TicTacToe -eval vector ...
+
+    private static final LineScan scan = LineScan.best();
+
+    public static int evaluate(AbstractBoard board) {
+        return Evaluate.evaluate(board, scan);
+    }
+
+    public static String implementation() {
+        // Name of the scan in use
+        return scan.getClass().getName();
+    }
+
+    public static void main(String[] args) {
+        // Check that the scans agree with the board's tallies on random games
+        LineScan[] scans = { new ScalarLineScan(), new TableLineScan(), LineScan.best() };
+        SplittableRandom random = new SplittableRandom(1);
+        int positions = 0;
+
+        for (int game = 0; game < 10000; game++) {
+            Board board = new Board();
+            while (!Evaluate.isOver(board)) {
+                long expected = LineScan.pack(board.ones(), board.twos(), board.threes());
+                for (LineScan scan : scans) {
+                    if (scan.scan(board.get(Player.X), board.get(Player.O)) != expected) {
+                        throw new AssertionError(scan.getClass().getName() + " differs on " + board);
+                    }
+                }
+                positions++;
+                board = board.next(board.randomMove(random));
+            }
+        }
+        System.out.println(positions + " positions checked with " + implementation());
+    }
+}
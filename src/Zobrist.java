@@ -0,0 +1,36 @@
+import java.util.Random;
+
+public class Zobrist {
+
+    // Random keys for each (player, position) pair. The hash of a board is
+    // the XOR of the keys of all occupied squares, so it can be updated
+    // incrementally when a piece is placed (or removed).
+    //
+    // The side to move does not need a key of its own: it is determined by
+    // the number of pieces on the board.
+
+    private static final long[] xKeys = new long[Coordinate.NCubed];
+    private static final long[] oKeys = new long[Coordinate.NCubed];
+    static {
+        Random random = new Random(0x3D_7AC_7AC_70EL); // Fixed seed: hashes are reproducible
+        for (int position = 0; position < Coordinate.NCubed; position++) {
+            xKeys[position] = random.nextLong();
+            oKeys[position] = random.nextLong();
+        }
+    }
+
+    public static long key(Player player, int position) {
+        assert Coordinate.isValid(position);
+        return player == Player.X ? xKeys[position] : oKeys[position];
+    }
+
+    public static long hash(long x, long o) {
+        // Hash computed from scratch
+        long hash = 0;
+        Bit.BitIterator xs = new Bit.BitIterator(x);
+        while (xs.hasNext()) hash ^= xKeys[xs.next()];
+        Bit.BitIterator os = new Bit.BitIterator(o);
+        while (os.hasNext()) hash ^= oKeys[os.next()];
+        return hash;
+    }
+}